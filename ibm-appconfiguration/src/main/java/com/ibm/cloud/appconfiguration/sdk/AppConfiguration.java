@@ -24,6 +24,8 @@ import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigConstant
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigMessages;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.Validators;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.ConfigurationOptions;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EntityAttributes;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EntityEvaluation;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.Feature;
 
 import java.util.HashMap;
@@ -154,6 +156,25 @@ public class AppConfiguration {
      *                     configurations present in this file to perform feature and property evaluations
      *                     configOption.liveConfigUpdateEnabled : live configurations update from the server.
      *                     Set this value to `false` if the new configuration values shouldn't be fetched from the server.
+     *                     configOption.evaluationCacheSize and configOption.evaluationCacheTtl : optional cache of the
+     *                     segment rule evaluation results. The cache is cleared whenever new configurations are loaded.
+     *                     configOption.rolloutBucketCacheSize : optional cache of the rollout buckets of the entities.
+     *                     configOption.asyncMetering : record the evaluations for metering on a background thread,
+     *                     through a buffer of configOption.meteringBufferSize evaluations. configOption.meteringOverflowPolicy
+     *                     decides whether the evaluations that don't fit in the buffer are dropped or sampled.
+     *                     configOption.meteringMaxRows and configOption.meteringEntitySamplingRate : bound the number
+     *                     of entities metered with their entity id. The other evaluations are metered without entity id.
+     *                     configOption.meteringMaxInFlight and configOption.meteringMaxQueuedRetries : limit the
+     *                     concurrent metering requests and the failed requests waiting to be retried.
+     *                     configOption.meteringFlushInterval, configOption.meteringMaxBufferedRows and
+     *                     configOption.meteringChunkSize : when and in how many requests the evaluations are sent.
+     *                     configOption.meteringShutdownFlushTimeout : send the evaluations when the JVM shuts down.
+     *                     configOption.meteringSpoolMaxSize : keep the metering requests that failed in a spool on
+     *                     disk next to the persistent cache, instead of in memory.
+     *                     configOption.schedulerThreadCount : number of threads running the background work.
+     *                     configOption.configRetryPolicy : delays between the retries of a failed configuration fetch.
+     *                     configOption.configUpdateQuietWindow : delay during which the configuration change
+     *                     notifications are gathered and applied together.
      */
     public void setContext(String collectionId, String environmentId, ConfigurationOptions configOption) {
 
@@ -322,6 +343,68 @@ public class AppConfiguration {
         return null;
     }
 
+    /**
+     * Evaluates all the features and properties for an entity. Segments shared by several features and
+     * properties are evaluated only once.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @return the evaluation results of all the features and properties, or {@code null} if the SDK is not
+     * initialised or the entity id is not valid
+     */
+    public EntityEvaluation evaluateAll(String entityId, EntityAttributes entityAttributes) {
+        if (!(this.isInitializedConfig && this.isInitialized)) {
+            BaseLogger.error(ConfigMessages.COLLECTION_INIT_ERROR);
+            return null;
+        }
+        if (!Validators.validateString(entityId)) {
+            BaseLogger.error("A valid entity id should be passed for this method.");
+            return null;
+        }
+        return this.configurationHandlerInstance.evaluateAll(entityId, entityAttributes);
+    }
+
+    /**
+     * Returns the number of feature and property evaluations served from the evaluation cache.
+     * The cache is enabled through {@link ConfigurationOptions#setEvaluationCacheSize(Integer)}.
+     *
+     * @return number of cache hits, {@code 0} if the cache is disabled
+     */
+    public long getEvaluationCacheHitCount() {
+        if (this.isInitializedConfig && this.isInitialized) {
+            return this.configurationHandlerInstance.getEvaluationCacheHitCount();
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number of feature and property evaluations that were not found in the evaluation cache.
+     *
+     * @return number of cache misses, {@code 0} if the cache is disabled
+     */
+    public long getEvaluationCacheMissCount() {
+        if (this.isInitializedConfig && this.isInitialized) {
+            return this.configurationHandlerInstance.getEvaluationCacheMissCount();
+        }
+        return 0;
+    }
+
+    /**
+     * Stop the SDK. The configuration updates, the retries and the connectivity checks stop, and the recorded
+     * evaluations are sent. The configurations already loaded can still be evaluated, but they are no longer
+     * updated and the evaluations are no longer metered.
+     * <p>
+     * This is terminal: the background work of the SDK can't be restarted in the same process. Call it when the
+     * application stops.
+     *
+     * @param timeoutMillis maximum time to wait for the evaluations to be sent and the background tasks to
+     *                      complete, in milliseconds
+     * @return {@code true} if they completed before the timeout
+     */
+    public boolean shutdown(long timeoutMillis) {
+        return ConfigurationHandler.getInstance().shutdown(timeoutMillis);
+    }
+
     /**
      * Method to enable or disable the logger. By default, logger is disabled.
      *
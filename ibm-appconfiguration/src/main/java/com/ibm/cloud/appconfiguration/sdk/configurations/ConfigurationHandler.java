@@ -22,19 +22,29 @@ import com.ibm.cloud.appconfiguration.sdk.configurations.models.Property;
 import com.ibm.cloud.appconfiguration.sdk.core.AppConfigException;
 import com.ibm.cloud.appconfiguration.sdk.core.BaseLogger;
 import com.ibm.cloud.appconfiguration.sdk.core.CoreConstants;
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.BackgroundScheduler;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigConstants;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigMessages;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.Connectivity;
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.EvaluationCache;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.FileManager;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.Metering;
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.RefreshCoalescer;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.RetryInterface;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.RetryHandler;
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.RolloutBucket;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.Socket;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.SocketHandler;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.URLBuilder;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.Validators;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.ConfigurationOptions;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EntityAttributes;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EntityEvaluation;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EvaluationResult;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.Feature;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.MeteringOverflowPolicy;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.RetryPolicy;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.internal.Rule;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.internal.Segment;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.internal.SegmentRules;
 import com.ibm.cloud.sdk.core.http.HttpHeaders;
@@ -46,8 +56,22 @@ import org.apache.commons.codec.digest.MurmurHash3;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Internal class to handle the configuration.
@@ -63,17 +87,36 @@ public class ConfigurationHandler {
     private String region = "";
     private Boolean isInitialized = false;
     private ConfigurationUpdateListener configurationUpdateListener = null;
-    private HashMap<String, Feature> featureMap = new HashMap();
-    private HashMap<String, Property> propertyMap = new HashMap();
-    private HashMap<String, Segment> segmentMap = new HashMap();
+    // the maps are replaced, never changed once published. A full load and a socket event replace them under the
+    // configLock, so that one doesn't overwrite the other with older configurations
+    private volatile HashMap<String, Feature> featureMap = new HashMap();
+    private volatile HashMap<String, Property> propertyMap = new HashMap();
+    private volatile HashMap<String, Segment> segmentMap = new HashMap();
+    private final Object configLock = new Object();
     private Boolean liveConfigUpdateEnabled = true;
     private String bootstrapFile = null;
     private Boolean onSocketRetry = false;
     private String overrideServiceUrl = null;
     private String persistentCacheLocation = null;
     private boolean usePrivateEndpoint = false;
+    private EvaluationCache evaluationCache = null;
+    private RolloutBucket rolloutBucket = new RolloutBucket(0);
 
     private RetryHandler configRetry;
+    private volatile ConfigFetcher configFetcher = null;
+    // entity tag of the configurations loaded from the server, sent back to only fetch them when they changed
+    private volatile String configEtag = null;
+    // hash of the last configurations loaded from the server, identical responses are not loaded again
+    private volatile long[] configHash = null;
+    // socket events waiting to be applied, a burst of events is applied by one refresh
+    private final Queue<String> configEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean configFetchRequested = new AtomicBoolean();
+    // the refreshes run on their own thread, never on the socket thread
+    private final ThreadPoolExecutor refreshExecutor = refreshExecutor();
+    private final RefreshCoalescer configEventRefresh = new RefreshCoalescer(this::applyConfigurationEvents,
+            ConfigConstants.DEFAULT_CONFIG_UPDATE_QUIET_WINDOW, this.refreshExecutor);
+    private RetryPolicy configRetryPolicy = RetryPolicy.exponentialBackoff(
+            ConfigConstants.DEFAULT_CONFIG_RETRY_MIN_DELAY, ConfigConstants.DEFAULT_CONFIG_RETRY_MAX_DELAY);
     private RetryHandler socketRetry;
 
     private Socket socket = null;
@@ -95,6 +138,25 @@ public class ConfigurationHandler {
     private ConfigurationHandler() {
     }
 
+    /*
+     * Gets the configurations from the server. Replaced by the tests only.
+     */
+    interface ConfigFetcher {
+        /*
+         * Returns the HTTP response, or throws a ServiceResponseException of status 304 when the configurations
+         * still match the entity tag, which is null before the first fetch.
+         */
+        Response getConfig(String url, String etag);
+    }
+
+    /*
+     * Gets the configurations with the given fetcher instead of the App Configuration service, or with the
+     * service again when null. Used by the tests only.
+     */
+    void setConfigFetcher(ConfigFetcher fetcher) {
+        this.configFetcher = fetcher;
+    }
+
     /**
      * Initialize the configurations.
      *
@@ -134,15 +196,64 @@ public class ConfigurationHandler {
             this.liveConfigUpdateEnabled = configOption.getLiveConfigUpdateEnabled();
             this.bootstrapFile = configOption.getBootstrapFile();
             this.persistentCacheLocation = configOption.getPersistentCacheDirectory();
+            Integer cacheSize = configOption.getEvaluationCacheSize();
+            Long cacheTtl = configOption.getEvaluationCacheTtl();
+            this.evaluationCache = cacheSize != null && cacheSize > 0
+                    ? new EvaluationCache(cacheSize, cacheTtl != null ? cacheTtl : 0) : null;
+            Integer bucketCacheSize = configOption.getRolloutBucketCacheSize();
+            this.rolloutBucket = new RolloutBucket(bucketCacheSize != null ? bucketCacheSize : 0);
+            if (Boolean.TRUE.equals(configOption.getAsyncMetering())) {
+                Integer bufferSize = configOption.getMeteringBufferSize();
+                MeteringOverflowPolicy overflowPolicy = configOption.getMeteringOverflowPolicy();
+                Metering.getInstance().enableAsyncMetering(
+                        bufferSize != null && bufferSize > 0 ? bufferSize : ConfigConstants.DEFAULT_METERING_BUFFER_SIZE,
+                        overflowPolicy != null ? overflowPolicy : MeteringOverflowPolicy.DROP);
+            } else {
+                Metering.getInstance().disableAsyncMetering();
+            }
+            Integer meteringMaxRows = configOption.getMeteringMaxRows();
+            Double entitySamplingRate = configOption.getMeteringEntitySamplingRate();
+            Metering.getInstance().setMeteringLimits(
+                    meteringMaxRows != null ? meteringMaxRows : ConfigConstants.DEFAULT_METERING_MAX_ROWS,
+                    entitySamplingRate != null ? entitySamplingRate : 1);
+            Integer maxInFlight = configOption.getMeteringMaxInFlight();
+            Integer maxQueuedRetries = configOption.getMeteringMaxQueuedRetries();
+            Metering.getInstance().setUploadLimits(
+                    maxInFlight != null ? maxInFlight : ConfigConstants.DEFAULT_METERING_MAX_IN_FLIGHT,
+                    maxQueuedRetries != null ? maxQueuedRetries : ConfigConstants.DEFAULT_METERING_MAX_QUEUED_RETRIES);
+            Long flushInterval = configOption.getMeteringFlushInterval();
+            Integer maxBufferedRows = configOption.getMeteringMaxBufferedRows();
+            Integer chunkSize = configOption.getMeteringChunkSize();
+            Metering.getInstance().setFlushPolicy(
+                    flushInterval != null && flushInterval > 0
+                            ? (int) Math.min(Integer.MAX_VALUE, flushInterval) : ConfigConstants.DEFAULT_METERING_FLUSH_INTERVAL,
+                    maxBufferedRows != null ? maxBufferedRows : 0,
+                    chunkSize != null ? chunkSize : 0);
+            Long shutdownFlushTimeout = configOption.getMeteringShutdownFlushTimeout();
+            Metering.getInstance().setShutdownFlushTimeout(shutdownFlushTimeout != null ? shutdownFlushTimeout : 0);
+            if (configOption.getConfigRetryPolicy() != null) {
+                this.configRetryPolicy = configOption.getConfigRetryPolicy();
+            }
+            Long quietWindow = configOption.getConfigUpdateQuietWindow();
+            this.configEventRefresh.setQuietWindow(
+                    quietWindow != null ? quietWindow : ConfigConstants.DEFAULT_CONFIG_UPDATE_QUIET_WINDOW);
+            Integer schedulerThreads = configOption.getSchedulerThreadCount();
+            BackgroundScheduler.getInstance().setThreadCount(
+                    schedulerThreads != null ? schedulerThreads : ConfigConstants.DEFAULT_SCHEDULER_THREADS);
+            Long spoolMaxSize = configOption.getMeteringSpoolMaxSize();
+            Metering.getInstance().setSpool(Validators.validateString(this.persistentCacheLocation)
+                    ? meteringSpoolDirectory(this.persistentCacheLocation) : null, spoolMaxSize != null ? spoolMaxSize : 0);
         }
         this.collectionId = collectionId;
         this.environmentId = environmentId;
+        this.configEtag = null;
+        this.configHash = null;
         URLBuilder.initWithContext(collectionId, environmentId, region, guid, overrideServiceUrl, usePrivateEndpoint);
         Metering.getInstance().setMeteringUrl(URLBuilder.getMeteringUrl(), apikey);
         this.isInitialized = true;
 
         if (this.liveConfigUpdateEnabled) {
-            // if live config update is enabled, start a daemon Timer thread that periodically checks the internet connectivity
+            // if live config update is enabled, periodically check the internet connectivity
             connectivity = Connectivity.getInstance();
             connectivity.addConnectivityListener(this::connectionHandler);
         }
@@ -161,6 +272,16 @@ public class ConfigurationHandler {
         }
     }
 
+    /*
+     * The metering spool is a sibling of the persistent cache file, or a child when the persistent cache
+     * location is a directory.
+     */
+    private static File meteringSpoolDirectory(String persistentCacheLocation) {
+        File cache = new File(persistentCacheLocation).getAbsoluteFile();
+        File parent = cache.isDirectory() ? cache : cache.getParentFile();
+        return new File(parent, ConfigConstants.METERING_SPOOL_DIRECTORY);
+    }
+
     /*
      *  it will create the configuration file in given directory.
      *  it will read the data from the file and populate it map
@@ -273,7 +394,12 @@ public class ConfigurationHandler {
         if (isConnected) {
             if (!this.isNetWorkConnected) {
                 this.isNetWorkConnected = true;
-                this.fetchConfigData();
+                // the configurations are fetched on the refresh thread rather than the connectivity check thread
+                try {
+                    this.refreshExecutor.execute(this::fetchConfigData);
+                } catch (RejectedExecutionException e) {
+                    BaseLogger.debug("The configurations are no longer fetched, the SDK is shut down.");
+                }
             }
         } else {
             BaseLogger.debug(ConfigMessages.NO_INTERNET_CONNECTION_ERROR);
@@ -320,47 +446,66 @@ public class ConfigurationHandler {
         String methodName = "loadConfigurationsAndPopulateInMap";
 
         if (!data.isEmpty()) {
+            // the maps are built before they are published, the evaluations never see them half filled
+            HashMap<String, Feature> features = null;
             if (data.has(ConfigConstants.FEATURES)) {
-                this.featureMap = new HashMap<>();
+                features = new HashMap<>();
                 try {
                     JSONArray array = (JSONArray) data.get(ConfigConstants.FEATURES);
                     for (int i = 0; i < array.length(); i++) {
                         JSONObject featureJson = array.getJSONObject(i);
                         Feature feature = new Feature(featureJson);
-                        this.featureMap.put(feature.getFeatureId(), feature);
+                        features.put(feature.getFeatureId(), feature);
                     }
                 } catch (Exception e) {
                     AppConfigException.logException(this.className, methodName, e);
                 }
             }
 
+            HashMap<String, Property> properties = null;
             if (data.has(ConfigConstants.PROPERTIES)) {
-                this.propertyMap = new HashMap<>();
+                properties = new HashMap<>();
                 try {
                     JSONArray array = (JSONArray) data.get(ConfigConstants.PROPERTIES);
                     for (int i = 0; i < array.length(); i++) {
                         JSONObject propertyJson = array.getJSONObject(i);
                         Property property = new Property(propertyJson);
-                        this.propertyMap.put(property.getPropertyId(), property);
+                        properties.put(property.getPropertyId(), property);
                     }
                 } catch (Exception e) {
                     AppConfigException.logException(this.className, methodName, e);
                 }
             }
 
+            HashMap<String, Segment> segments = null;
             if (data.has(ConfigConstants.SEGMENTS)) {
-                this.segmentMap = new HashMap<>();
+                segments = new HashMap<>();
                 try {
                     JSONArray array = (JSONArray) data.get(ConfigConstants.SEGMENTS);
                     for (int i = 0; i < array.length(); i++) {
                         JSONObject segmentJson = array.getJSONObject(i);
                         Segment segment = new Segment(segmentJson);
-                        this.segmentMap.put(segment.getSegmentId(), segment);
+                        segments.put(segment.getSegmentId(), segment);
                     }
                 } catch (Exception e) {
                     AppConfigException.logException(this.className, methodName, e);
                 }
             }
+
+            synchronized (this.configLock) {
+                if (features != null) {
+                    this.featureMap = features;
+                }
+                if (properties != null) {
+                    this.propertyMap = properties;
+                }
+                if (segments != null) {
+                    this.segmentMap = segments;
+                }
+                if (this.evaluationCache != null) {
+                    this.evaluationCache.invalidate();
+                }
+            }
         }
     }
 
@@ -388,23 +533,49 @@ public class ConfigurationHandler {
      * @return property evaluated value
      */
     public Object propertyEvaluation(Property property, String entityId, JSONObject entityAttributes) {
-        JSONObject resultDict = new JSONObject();
-        resultDict.put(ConfigConstants.EVALUATED_SEGMENT_ID, ConfigConstants.DEFAULT_SEGMENT_ID);
-        resultDict.put(ConfigConstants.VALUE, new Object());
+        return this.propertyEvaluation(property, entityId, EntityAttributes.of(entityAttributes));
+    }
+
+    /**
+     * Property evaluation.
+     *
+     * @param property property object
+     * @param entityId entity id
+     * @param entityAttributes entity attributes
+     * @return property evaluated value
+     */
+    public Object propertyEvaluation(Property property, String entityId, EntityAttributes entityAttributes) {
+        EvaluationResult result = new EvaluationResult();
+        this.evaluateProperty(property, entityId, entityAttributes, result);
+        return result.getValue();
+    }
 
+    /**
+     * Property evaluation into a reusable result holder.
+     *
+     * @param property property object
+     * @param entityId entity id
+     * @param entityAttributes entity attributes
+     * @param result holder that receives the evaluated value and segment id
+     */
+    public void evaluateProperty(Property property, String entityId, EntityAttributes entityAttributes,
+                                 EvaluationResult result) {
         try {
-            JSONArray segmentRules = property.getSegmentRules();
-            if (segmentRules.length() > 0 && entityAttributes != null && !entityAttributes.isEmpty()) {
-                Map<Integer, SegmentRules> rulesMap = this.parseRules(segmentRules);
-                resultDict = evaluateRules(rulesMap, entityAttributes, null, property, null);
-                return resultDict.get(ConfigConstants.VALUE);
-            }
-            return property.getValue();
+            this.computeProperty(property, entityAttributes, result, null);
         } finally {
-            String propertyId = property.getPropertyId();
-            this.recordValuation(null, propertyId, entityId,
-                    resultDict.getString(ConfigConstants.EVALUATED_SEGMENT_ID));
+            this.recordValuation(null, property.getPropertyId(), entityId, result.getEvaluatedSegmentId());
+        }
+    }
+
+    private void computeProperty(Property property, EntityAttributes entityAttributes, EvaluationResult result,
+                                 HashMap<String, Boolean> segmentResults) {
+        result.reset();
+        SegmentRules[] segmentRules = property.getCompiledSegmentRules();
+        if (segmentRules.length > 0 && entityAttributes != null && !entityAttributes.isEmpty()) {
+            evaluateRulesCached(segmentRules, entityAttributes, null, property, null, result, segmentResults);
+            return;
         }
+        result.setValue(property.getValue());
     }
 
     /**
@@ -416,88 +587,149 @@ public class ConfigurationHandler {
      * @return feature evaluated value in map
      */
     public HashMap<String, Object> featureEvaluation(Feature feature, String entityId, JSONObject entityAttributes) {
+        return this.featureEvaluation(feature, entityId, EntityAttributes.of(entityAttributes));
+    }
 
-        JSONObject resultDict = new JSONObject();
-        resultDict.put(ConfigConstants.EVALUATED_SEGMENT_ID, ConfigConstants.DEFAULT_SEGMENT_ID);
-        resultDict.put(ConfigConstants.VALUE, new Object());
+    /**
+     * Feature evaluation.
+     *
+     * @param feature feature object
+     * @param entityId entity id
+     * @param entityAttributes entity attributes
+     * @return feature evaluated value in map
+     */
+    public HashMap<String, Object> featureEvaluation(Feature feature, String entityId, EntityAttributes entityAttributes) {
+        EvaluationResult result = new EvaluationResult();
+        this.evaluateFeature(feature, entityId, entityAttributes, result);
         HashMap<String, Object> map = new HashMap<String, Object>();
+        map.put(ConfigConstants.CURRENT_VALUE, result.getValue());
+        map.put(ConfigConstants.IS_ENABLED, result.isEnabled());
+        return map;
+    }
+
+    /**
+     * Feature evaluation into a reusable result holder.
+     *
+     * @param feature feature object
+     * @param entityId entity id
+     * @param entityAttributes entity attributes
+     * @param result holder that receives the evaluated value, state and segment id
+     */
+    public void evaluateFeature(Feature feature, String entityId, EntityAttributes entityAttributes,
+                                EvaluationResult result) {
         try {
-            if (feature.isEnabled()) {
-                JSONArray segmentRules = feature.getSegmentRules();
-                if (segmentRules.length() > 0 && entityAttributes != null && !entityAttributes.isEmpty()) {
-                    Map<Integer, SegmentRules> rulesMap = this.parseRules(segmentRules);
-                    resultDict = evaluateRules(rulesMap, entityAttributes, feature, null, entityId);
-                    map.put(ConfigConstants.CURRENT_VALUE, resultDict.get(ConfigConstants.VALUE));
-                    map.put(ConfigConstants.IS_ENABLED, resultDict.get(ConfigConstants.FEATURE_ENABLED));
-                    return map;
-                }
-                int hashResult = calculateMurmurHash(entityId, feature.getFeatureId());
-                if (feature.getRolloutPercentage() == ConfigConstants.DEFAULT_ROLLOUT_PERCENTAGE || hashResult < feature.getRolloutPercentage()) {
-                    map.put(ConfigConstants.CURRENT_VALUE, feature.getEnabledValue());
-                    map.put(ConfigConstants.IS_ENABLED, true);
-                    return map;
-                }
-                map.put(ConfigConstants.CURRENT_VALUE, feature.getDisabledValue());
-                map.put(ConfigConstants.IS_ENABLED, false);
-                return map;
-            } else {
-                map.put(ConfigConstants.CURRENT_VALUE, feature.getDisabledValue());
-                map.put(ConfigConstants.IS_ENABLED, false);
-                return map;
+            this.computeFeature(feature, entityId, entityAttributes, result, null);
+        } finally {
+            this.recordValuation(feature.getFeatureId(), null, entityId, result.getEvaluatedSegmentId());
+        }
+    }
+
+    private void computeFeature(Feature feature, String entityId, EntityAttributes entityAttributes,
+                                EvaluationResult result, HashMap<String, Boolean> segmentResults) {
+        result.reset();
+        if (feature.isEnabled()) {
+            SegmentRules[] segmentRules = feature.getCompiledSegmentRules();
+            if (segmentRules.length > 0 && entityAttributes != null && !entityAttributes.isEmpty()) {
+                evaluateRulesCached(segmentRules, entityAttributes, feature, null, entityId, result, segmentResults);
+                return;
+            }
+            setFeatureRolloutValue(feature, entityId, feature.getRolloutPercentage(), feature.getEnabledValue(), result);
+        } else {
+            result.setValue(feature.getDisabledValue());
+            result.setEnabled(false);
+        }
+    }
+
+    /**
+     * Evaluates all the features and properties for an entity.
+     * <p>
+     * Each segment is evaluated at most once, whatever the number of features and properties that target it,
+     * and the evaluations are recorded for metering in a single operation.
+     *
+     * @param entityId entity id
+     * @param entityAttributes entity attributes
+     * @return the results of all the features and properties
+     */
+    public EntityEvaluation evaluateAll(String entityId, EntityAttributes entityAttributes) {
+        HashMap<String, Feature> features = this.featureMap;
+        HashMap<String, Property> properties = this.propertyMap;
+        HashMap<String, EvaluationResult> featureResults = new HashMap<>();
+        HashMap<String, EvaluationResult> propertyResults = new HashMap<>();
+        HashMap<String, Boolean> segmentResults = new HashMap<>();
+        try {
+            for (Feature feature : features.values()) {
+                EvaluationResult result = new EvaluationResult();
+                featureResults.put(feature.getFeatureId(), result);
+                this.computeFeature(feature, entityId, entityAttributes, result, segmentResults);
+            }
+            for (Property property : properties.values()) {
+                EvaluationResult result = new EvaluationResult();
+                propertyResults.put(property.getPropertyId(), result);
+                this.computeProperty(property, entityAttributes, result, segmentResults);
             }
         } finally {
-            String featureId = feature.getFeatureId();
-            this.recordValuation(featureId, null, entityId,
-                    resultDict.getString(ConfigConstants.EVALUATED_SEGMENT_ID));
+            Metering.getInstance().addMetering(guid, environmentId, collectionId, entityId, featureResults, propertyResults);
+        }
+        return new EntityEvaluation(entityId, featureResults, propertyResults);
+    }
+
+    private void evaluateRulesCached(SegmentRules[] segmentRules, EntityAttributes entityAttributes,
+                                     Feature feature, Property property, String entityId, EvaluationResult result,
+                                     HashMap<String, Boolean> segmentResults) {
+        EvaluationCache cache = this.evaluationCache;
+        if (cache == null) {
+            evaluateRules(segmentRules, entityAttributes, feature, property, entityId, result, segmentResults);
+            return;
+        }
+        // a property value doesn't depend on the entity id, only the feature rollout does
+        EvaluationCache.Key key = cache.newKey(feature != null ? feature : property, feature != null ? entityId : null,
+                entityAttributes, configuration -> this.getReferencedAttributes(segmentRules));
+        if (!cache.get(key, result)) {
+            evaluateRules(segmentRules, entityAttributes, feature, property, entityId, result, segmentResults);
+            cache.put(key, result);
         }
     }
 
-    private JSONObject evaluateRules(Map<Integer, SegmentRules> rulesMap, JSONObject entityAttributes,
-                                     Feature feature, Property property, String entityId) {
+    private String[] getReferencedAttributes(SegmentRules[] segmentRules) {
+        Set<String> attributeNames = new LinkedHashSet<>();
+        for (SegmentRules segmentRule : segmentRules) {
+            for (String segmentId : segmentRule.getSegmentIds()) {
+                Segment segment = this.segmentMap.get(segmentId);
+                if (segment != null) {
+                    for (Rule rule : segment.getCompiledRules()) {
+                        if (rule.attributeName != null) {
+                            attributeNames.add(rule.attributeName);
+                        }
+                    }
+                }
+            }
+        }
+        return attributeNames.toArray(new String[0]);
+    }
 
-        JSONObject resultDict = new JSONObject();
-        resultDict.put(ConfigConstants.EVALUATED_SEGMENT_ID, ConfigConstants.DEFAULT_SEGMENT_ID);
-        resultDict.put(ConfigConstants.VALUE, new Object());
+    private void evaluateRules(SegmentRules[] segmentRules, EntityAttributes entityAttributes,
+                               Feature feature, Property property, String entityId, EvaluationResult result,
+                               HashMap<String, Boolean> segmentResults) {
         try {
-            for (int i = 1; i <= rulesMap.size(); i++) {
-
-                SegmentRules segmentRule = rulesMap.get(i);
-                if (segmentRule != null) {
-
-                    for (int level = 0; level < segmentRule.getRules().length(); level++) {
-                        JSONObject rule = segmentRule.getRules().getJSONObject(level);
-                        JSONArray segments = rule.getJSONArray(ConfigConstants.SEGMENTS);
-                        for (int innerLevel = 0; innerLevel < segments.length(); innerLevel++) {
-                            String segmentKey = segments.getString(innerLevel);
-                            if (this.evaluateSegment(segmentKey, entityAttributes)) {
-                                resultDict.put(ConfigConstants.EVALUATED_SEGMENT_ID, segmentKey);
-                                if (feature != null) {
-                                    int rolloutPercentage = getRolloutPercentage(segmentRule.getRolloutPercentage(), feature.getRolloutPercentage());
-                                    int hashResult = calculateMurmurHash(entityId, feature.getFeatureId());
-                                    if (rolloutPercentage == ConfigConstants.DEFAULT_ROLLOUT_PERCENTAGE || hashResult < rolloutPercentage) {
-                                        if (segmentRule.getValue().equals("$default")) {
-                                            resultDict.put(ConfigConstants.VALUE, feature.getEnabledValue());
-                                        } else {
-                                            resultDict.put(ConfigConstants.VALUE, segmentRule.getValue());
-                                        }
-                                        resultDict.put(ConfigConstants.FEATURE_ENABLED, true);
-                                    } else {
-                                        resultDict.put(ConfigConstants.VALUE, feature.getDisabledValue());
-                                        resultDict.put(ConfigConstants.FEATURE_ENABLED, false);
-                                    }
-                                } else {
-                                    // property
-                                    if (segmentRule.getValue().equals("$default")) {
-                                        // inherited of value property.value
-                                        resultDict.put(ConfigConstants.VALUE, property.getValue());
-                                    } else {
-                                        // segment level overrided value
-                                        resultDict.put(ConfigConstants.VALUE, segmentRule.getValue());
-                                    }
-                                }
-                                return resultDict;
+            for (SegmentRules segmentRule : segmentRules) {
+                for (String segmentKey : segmentRule.getSegmentIds()) {
+                    if (this.evaluateSegment(segmentKey, entityAttributes, segmentResults)) {
+                        result.setEvaluatedSegmentId(segmentKey);
+                        if (feature != null) {
+                            int rolloutPercentage = segmentRule.getRolloutPercentage(feature.getRolloutPercentage());
+                            Object enabledValue = segmentRule.inheritsValue() ? feature.getEnabledValue() : segmentRule.getValue();
+                            setFeatureRolloutValue(feature, entityId, rolloutPercentage, enabledValue, result);
+                        } else {
+                            // property
+                            if (segmentRule.inheritsValue()) {
+                                // inherited of value property.value
+                                result.setValue(property.getValue());
+                            } else {
+                                // segment level overrided value
+                                result.setValue(segmentRule.getValue());
                             }
                         }
+                        return;
                     }
                 }
             }
@@ -505,54 +737,41 @@ public class ConfigurationHandler {
             AppConfigException.logException(this.className, "RuleEvaluation", e);
         }
         if (feature != null) {
-            int hashResult = calculateMurmurHash(entityId, feature.getFeatureId());
-            if (feature.getRolloutPercentage() == ConfigConstants.DEFAULT_ROLLOUT_PERCENTAGE || hashResult < feature.getRolloutPercentage()) {
-                resultDict.put(ConfigConstants.VALUE, feature.getEnabledValue());
-                resultDict.put(ConfigConstants.FEATURE_ENABLED, true);
-            } else {
-                resultDict.put(ConfigConstants.VALUE, feature.getDisabledValue());
-                resultDict.put(ConfigConstants.FEATURE_ENABLED, false);
-            }
+            setFeatureRolloutValue(feature, entityId, feature.getRolloutPercentage(), feature.getEnabledValue(), result);
         } else {
-            resultDict.put(ConfigConstants.VALUE, property.getValue());
+            result.setValue(property.getValue());
         }
-        return resultDict;
     }
 
-    private int getRolloutPercentage(Object segmentRolloutPer, int featureRolloutPer) {
-        if (segmentRolloutPer.equals("$default")) {
-            return featureRolloutPer;
+    private void setFeatureRolloutValue(Feature feature, String entityId, int rolloutPercentage, Object enabledValue,
+                                        EvaluationResult result) {
+        // the hash is computed only when the rollout is partial
+        if (rolloutPercentage == ConfigConstants.DEFAULT_ROLLOUT_PERCENTAGE
+                || calculateMurmurHash(entityId, feature.getFeatureId()) < rolloutPercentage) {
+            result.setValue(enabledValue);
+            result.setEnabled(true);
         } else {
-            return (int) segmentRolloutPer;
+            result.setValue(feature.getDisabledValue());
+            result.setEnabled(false);
         }
     }
 
-    private Boolean evaluateSegment(String segmentKey, JSONObject entityAttributes) {
-
-        if (this.segmentMap.containsKey(segmentKey)) {
-            Segment segment = this.segmentMap.get(segmentKey);
-            return segment.evaluateRule(entityAttributes);
+    private boolean evaluateSegment(String segmentKey, EntityAttributes entityAttributes,
+                                    HashMap<String, Boolean> segmentResults) {
+        // results of the segments already evaluated for the entity, when evaluating several configurations at once
+        Boolean matched = segmentResults != null ? segmentResults.get(segmentKey) : null;
+        if (matched != null) {
+            return matched;
         }
-        return false;
-
-    }
-
-    private Map<Integer, SegmentRules> parseRules(JSONArray segmentRulesList) {
-        Map<Integer, SegmentRules> ruleMap = new HashMap<>();
-        for (int i = 0; i < segmentRulesList.length(); i++) {
-            try {
-                JSONObject rule = segmentRulesList.getJSONObject(i);
-                SegmentRules segmentRules = new SegmentRules(rule);
-                ruleMap.put(segmentRules.getOrder(), segmentRules);
-            } catch (Exception e) {
-                AppConfigException.logException(this.className, "parseRules", e);
-            }
+        Segment segment = this.segmentMap.get(segmentKey);
+        matched = segment != null && segment.evaluateRule(entityAttributes);
+        if (segmentResults != null) {
+            segmentResults.put(segmentKey, matched);
         }
-        return ruleMap;
+        return matched;
     }
 
-
-    private void fetchFromApi() {
+    private boolean fetchFromApi() {
         String methodName = "fetchFromApi";
         /*
             2xx - Do not retry (Success)
@@ -568,7 +787,8 @@ public class ConfigurationHandler {
             For 429 error code - The getConfig() will retry the request 3 times in an interval of time mentioned in ["retry-after"] header.
             If all the 3 retries exhausts the call is returned and appropriate exceptions are raised.
 
-            When all the above retries fails, we schedule our own Timer to retry after 10 minutes for the response status_codes [429 & 5xx].
+            When all the above retries fails, we schedule our own retries for the response status_codes [429 & 5xx], with an
+            exponential backoff from 15 seconds up to 10 minutes by default (see ConfigurationOptions.setConfigRetryPolicy).
             All other status codes are not retried nor a retry is scheduled.
             User has to take immediate action and resolve it themselves by looking at the error logs.
          */
@@ -576,36 +796,53 @@ public class ConfigurationHandler {
             String url = URLBuilder.getConfigUrl();
             Response response;
             try {
-                response = ServiceImpl.getInstance(apikey).getConfig(url);
+                ConfigFetcher fetcher = this.configFetcher;
+                response = fetcher != null ? fetcher.getConfig(url, this.configEtag)
+                        : ServiceImpl.getInstance(apikey).getConfig(url, this.configEtag);
             } catch (ServiceResponseException e) {
+                if (e.getStatusCode() == CoreConstants.NOT_MODIFIED) {
+                    BaseLogger.debug(ConfigMessages.FETCH_API_NOT_MODIFIED);
+                    this.cancelConfigRetry();
+                    return false;
+                }
                 BaseLogger.error("Exception occurred while fetching configurations. Status code:" + e.getStatusCode() + " message: " + e.getMessage());
                 if (e.getStatusCode() == CoreConstants.TOO_MANY_REQUESTS || (e.getStatusCode() >= CoreConstants.SERVER_ERROR_BEGIN && e.getStatusCode() <= CoreConstants.SERVER_ERROR_END)) {
                     BaseLogger.info(ConfigMessages.API_RETRY_SCHEDULED_MESSAGE);
                     startConfigRetryTimer();
                 }
-                return;
+                return false;
             } catch (Exception e) {
                 AppConfigException.logException(this.className, methodName, e);
                 BaseLogger.info(ConfigMessages.API_RETRY_SCHEDULED_MESSAGE);
                 startConfigRetryTimer();
-                return;
+                return false;
             }
 
             // API request was successful
             if (response.getStatusCode() == CoreConstants.REQUEST_SUCCESS_200) {
                 BaseLogger.debug(ConfigMessages.FETCH_API_SUCCESSFUL);
                 try {
-                    if (configRetry != null) {
-                        configRetry.cancel();
-                        configRetry = null;
+                    this.cancelConfigRetry();
+                    String body = (String) response.getResult();
+                    List<String> etags = response.getHeaders().values(HttpHeaders.ETAG);
+                    String etag = etags.isEmpty() ? null : etags.get(0);
+                    long[] hash = MurmurHash3.hash128x64(body.getBytes(StandardCharsets.UTF_8));
+                    if (Arrays.equals(hash, this.configHash)) {
+                        BaseLogger.debug(ConfigMessages.FETCH_API_NOT_MODIFIED);
+                        this.configEtag = etag;
+                        return false;
                     }
-                    HashMap<String, Object> map = new ObjectMapper().readValue((String) response.getResult(),
-                            HashMap.class);
+                    this.configEtag = null;
+                    this.configHash = null;
+                    HashMap<String, Object> map = new ObjectMapper().readValue(body, HashMap.class);
                     JSONObject obj = new JSONObject(map);
                     loadConfigurationsAndPopulateInMap(obj);
                     if (this.persistentCacheLocation != null) {
                         FileManager.createAndStoreFile(map, persistentCacheLocation);
                     }
+                    this.configEtag = etag;
+                    this.configHash = hash;
+                    return true;
                 } catch (Exception e) {
                     AppConfigException.logException(this.className, methodName, e);
                 }
@@ -616,27 +853,158 @@ public class ConfigurationHandler {
         } else {
             BaseLogger.debug(ConfigMessages.CONFIG_HANDLER_INIT_ERROR);
         }
+        return false;
     }
 
 
+    private static ThreadPoolExecutor refreshExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "appconfiguration-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Queue a configuration event received from the server. The events received within the quiet window are
+     * applied together on the refresh thread, and the update listener is notified once.
+     *
+     * @param message the event
+     */
+    public void onConfigurationEvent(String message) {
+        this.configEvents.add(message);
+        this.configEventRefresh.request();
+    }
+
+    /*
+     * Apply the socket events received since the last refresh, in order. When a full fetch was requested, or
+     * one of the events can't be applied in place, a single full fetch replaces the rest. The update listener
+     * is notified once.
+     */
+    private void applyConfigurationEvents() {
+        boolean updated = false;
+        if (this.configFetchRequested.getAndSet(false)) {
+            this.configEvents.clear();
+            updated = this.fetchFromApi();
+        }
+        String message;
+        while ((message = this.configEvents.poll()) != null) {
+            if (!this.applyConfigurationEvent(message)) {
+                this.configEvents.clear();
+                updated |= this.fetchFromApi();
+                break;
+            }
+            updated = true;
+        }
+        if (updated) {
+            this.updatedConfiguration();
+        }
+    }
+
+    /*
+     * A socket event that carries the changed features, properties or segments, in the format of the
+     * configuration response, is applied to the maps of these entities only. Returns false for any other event,
+     * and while a persistent cache is kept, so that the caller falls back to a full fetch.
+     */
+    private boolean applyConfigurationEvent(String message) {
+        if (this.persistentCacheLocation != null || message == null || !message.trim().startsWith("{")) {
+            return false;
+        }
+        try {
+            JSONObject event = new JSONObject(message);
+            if (!event.has(ConfigConstants.FEATURES) && !event.has(ConfigConstants.PROPERTIES)
+                    && !event.has(ConfigConstants.SEGMENTS)) {
+                return false;
+            }
+            // the changes are parsed and checked before the maps are copied
+            List<Feature> changedFeatures = new ArrayList<>();
+            JSONArray array = event.has(ConfigConstants.FEATURES) ? event.getJSONArray(ConfigConstants.FEATURES) : null;
+            for (int i = 0; array != null && i < array.length(); i++) {
+                Feature feature = new Feature(array.getJSONObject(i));
+                if (!feature.isValid()) {
+                    return false;
+                }
+                changedFeatures.add(feature);
+            }
+            List<Property> changedProperties = new ArrayList<>();
+            array = event.has(ConfigConstants.PROPERTIES) ? event.getJSONArray(ConfigConstants.PROPERTIES) : null;
+            for (int i = 0; array != null && i < array.length(); i++) {
+                Property property = new Property(array.getJSONObject(i));
+                if (!property.isValid()) {
+                    return false;
+                }
+                changedProperties.add(property);
+            }
+            List<Segment> changedSegments = new ArrayList<>();
+            array = event.has(ConfigConstants.SEGMENTS) ? event.getJSONArray(ConfigConstants.SEGMENTS) : null;
+            for (int i = 0; array != null && i < array.length(); i++) {
+                Segment segment = new Segment(array.getJSONObject(i));
+                if (!segment.isValid()) {
+                    return false;
+                }
+                changedSegments.add(segment);
+            }
+            synchronized (this.configLock) {
+                if (!changedFeatures.isEmpty()) {
+                    HashMap<String, Feature> features = new HashMap<>(this.featureMap);
+                    changedFeatures.forEach(feature -> features.put(feature.getFeatureId(), feature));
+                    this.featureMap = features;
+                }
+                if (!changedProperties.isEmpty()) {
+                    HashMap<String, Property> properties = new HashMap<>(this.propertyMap);
+                    changedProperties.forEach(property -> properties.put(property.getPropertyId(), property));
+                    this.propertyMap = properties;
+                }
+                if (!changedSegments.isEmpty()) {
+                    HashMap<String, Segment> segments = new HashMap<>(this.segmentMap);
+                    changedSegments.forEach(segment -> segments.put(segment.getSegmentId(), segment));
+                    this.segmentMap = segments;
+                }
+                if (this.evaluationCache != null) {
+                    this.evaluationCache.invalidate();
+                }
+                // the configurations no longer match the last fetched ones
+                this.configEtag = null;
+                this.configHash = null;
+            }
+            BaseLogger.debug(ConfigMessages.CONFIG_EVENT_APPLIED);
+            return true;
+        } catch (Exception e) {
+            AppConfigException.logException(this.className, "applyConfigurationEvent", e);
+            return false;
+        }
+    }
+
     private void updatedConfiguration() {
         if (this.configurationUpdateListener != null) {
             this.configurationUpdateListener.onConfigurationUpdate();
         }
     }
 
-    private synchronized void startConfigRetryTimer() {
-
+    private synchronized void cancelConfigRetry() {
         if (this.configRetry != null) {
             this.configRetry.cancel();
             this.configRetry = null;
         }
+    }
+
+    /*
+     * The retries continue with growing delays until a fetch succeeds and cancels them.
+     */
+    private synchronized void startConfigRetryTimer() {
+
+        if (this.configRetry != null) {
+            return;
+        }
         configRetry = new RetryHandler(new RetryInterface() {
             @Override
             public void retryMethod() {
                 fetchFromApi();
             }
-        }, -1);
+        }, this.configRetryPolicy, this.refreshExecutor);
     }
 
     private synchronized void startSocketRetryTimer() {
@@ -655,7 +1023,50 @@ public class ConfigurationHandler {
                 socketRetry.cancel();
                 socketRetry = null;
             }
-        }, 5000);
+        }, 5000, this.refreshExecutor);
+    }
+
+    /**
+     * Stop the background work of the SDK: the configuration and socket retries, the socket, the connectivity
+     * check, the configuration refreshes and the metering, whose recorded evaluations are sent first. The
+     * configurations already loaded can still be evaluated, but they are no longer updated and the evaluations
+     * are no longer metered. A shutdown is terminal, the background work can't be restarted.
+     *
+     * @param timeoutMillis maximum time to wait for the metering upload and the running tasks in milliseconds
+     * @return {@code true} if they completed before the timeout
+     */
+    public boolean shutdown(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Socket currentSocket;
+        synchronized (this) {
+            this.cancelConfigRetry();
+            if (this.socketRetry != null) {
+                this.socketRetry.cancel();
+                this.socketRetry = null;
+            }
+            // the socket is cleared first, so that its closing doesn't start a retry
+            currentSocket = this.socket;
+            this.socket = null;
+        }
+        if (currentSocket != null) {
+            currentSocket.cancel();
+        }
+        if (this.connectivity != null) {
+            this.connectivity.stop();
+        }
+        this.refreshExecutor.shutdown();
+        boolean completed = Metering.getInstance().shutdown(remainingMillis(deadline));
+        try {
+            completed &= this.refreshExecutor.awaitTermination(remainingMillis(deadline), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completed = false;
+        }
+        return BackgroundScheduler.getInstance().shutdown(remainingMillis(deadline)) && completed;
+    }
+
+    private static long remainingMillis(long deadline) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
     }
 
     private SocketHandler getSocketHandler() {
@@ -666,7 +1077,8 @@ public class ConfigurationHandler {
                 public void onOpen(String openMessage) {
                     if (onSocketRetry) {
                         onSocketRetry = false;
-                        fetchFromApi();
+                        configFetchRequested.set(true);
+                        configEventRefresh.request();
                     }
                     if (socketRetry != null) {
                         socketRetry.cancel();
@@ -677,9 +1089,8 @@ public class ConfigurationHandler {
 
                 @Override
                 public void onMessage(String message) {
-                    fetchFromApi();
-                    updatedConfiguration();
                     BaseLogger.debug("Received message from socket. " + message);
+                    onConfigurationEvent(message);
                 }
 
                 @Override
@@ -700,15 +1111,29 @@ public class ConfigurationHandler {
         return socketHandler;
     }
 
-    public int calculateMurmurHash(String entityId, String featureId) {
-        String data = entityId + ":" + featureId;
-        long hashResult = MurmurHash3.hash32x86(data.getBytes(), ConfigConstants.OFFSET, data.getBytes().length, ConfigConstants.SEED);
+    /**
+     * @return number of evaluations served from the evaluation cache. {@code 0} if the cache is disabled
+     */
+    public long getEvaluationCacheHitCount() {
+        return this.evaluationCache != null ? this.evaluationCache.getHitCount() : 0;
+    }
 
-        //The decimal equivalent of 0x00000000ffffffff = 2^32 (4294967295).
-        if (hashResult < 0) {
-            hashResult = hashResult & 0x00000000ffffffffL;
-        }
-        return (int) ((hashResult / ConfigConstants.MAX_VAL) * 100);
+    /**
+     * @return number of evaluations not found in the evaluation cache. {@code 0} if the cache is disabled
+     */
+    public long getEvaluationCacheMissCount() {
+        return this.evaluationCache != null ? this.evaluationCache.getMissCount() : 0;
+    }
+
+    /**
+     * Get the rollout bucket of an entity for a feature.
+     *
+     * @param entityId entity id
+     * @param featureId feature id
+     * @return bucket between 0 and 99
+     */
+    public int calculateMurmurHash(String entityId, String featureId) {
+        return this.rolloutBucket.bucket(entityId, featureId);
     }
 
 }
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
+
+import com.ibm.cloud.appconfiguration.sdk.core.AppConfigException;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single scheduler of the SDK background work: the configuration and socket retries, the connectivity check,
+ * and the metering sends and retries. It runs on a small pool of daemon threads instead of a timer thread
+ * per task.
+ * <p>
+ * The scheduler only times the work. The work that waits for the network runs elsewhere: the configuration
+ * fetches and the socket connections on the refresh thread, the connectivity check on a thread of its own and
+ * the metering sends on the upload threads. So a slow server doesn't delay the other tasks, and two threads
+ * are enough.
+ * <p>
+ * A shutdown is terminal: the tasks scheduled afterwards are rejected with a
+ * {@link java.util.concurrent.RejectedExecutionException}.
+ */
+public class BackgroundScheduler {
+
+    private static BackgroundScheduler instance;
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * @return instance of {@link BackgroundScheduler} that runs the SDK background work
+     */
+    public static synchronized BackgroundScheduler getInstance() {
+        if (instance == null) {
+            instance = new BackgroundScheduler(ConfigConstants.DEFAULT_SCHEDULER_THREADS);
+        }
+        return instance;
+    }
+
+    /**
+     * A scheduler of its own. The SDK schedules its work on {@link #getInstance()}.
+     *
+     * @param threads number of threads
+     */
+    public BackgroundScheduler(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "appconfiguration-scheduler-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Set the number of threads running the background work.
+     *
+     * @param threads number of threads
+     */
+    public void setThreadCount(int threads) {
+        this.executor.setCorePoolSize(Math.max(1, threads));
+    }
+
+    /**
+     * Run a task once after a delay.
+     *
+     * @param task the task
+     * @param delayMillis delay in milliseconds
+     * @return the scheduled task, to cancel it
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return this.executor.schedule(guard(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a task periodically.
+     *
+     * @param task the task
+     * @param delayMillis delay before the first run in milliseconds
+     * @param periodMillis period between two runs in milliseconds
+     * @return the scheduled task, to cancel it
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long delayMillis, long periodMillis) {
+        return this.executor.scheduleAtFixedRate(guard(task), delayMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * A periodic task that throws is never run again, log the exception instead.
+     */
+    private static Runnable guard(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                AppConfigException.logException(BackgroundScheduler.class.getName(), "run", e);
+            }
+        };
+    }
+
+    /**
+     * Stop the background work. The scheduled tasks are cancelled and the running ones are awaited. The
+     * scheduler can't be restarted.
+     *
+     * @param timeoutMillis maximum time to wait for the running tasks in milliseconds
+     * @return {@code true} if the running tasks completed before the timeout
+     */
+    public boolean shutdown(long timeoutMillis) {
+        this.executor.shutdown();
+        try {
+            return this.executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
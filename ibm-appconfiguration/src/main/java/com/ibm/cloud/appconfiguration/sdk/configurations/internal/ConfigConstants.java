@@ -54,11 +54,26 @@ public class ConfigConstants {
     public static final String ROLLOUT_PERCENTAGE = "rollout_percentage";
     public static final String FEATURE_ENABLED = "feature_enabled";
     public static final int DEFAULT_ROLLOUT_PERCENTAGE = 100;
+    public static final String DEFAULT_VALUE = "$default";
     public static final int SEED = 0;
     public static final int OFFSET = 0;
     public static final double MAX_VAL = Math.pow(2, 32);
     public static final String IS_ENABLED = "is_enabled";
     public static final String CURRENT_VALUE = "current_value";
     public static final int CUSTOM_SOCKET_CLOSE_REASON_CODE = 4001;
+    public static final int DEFAULT_METERING_BUFFER_SIZE = 8192;
+    public static final int METERING_SAMPLE_RATE = 8;
+    public static final int DEFAULT_METERING_MAX_ROWS = 100000;
+    public static final int METERING_HEAVY_HITTER_THRESHOLD = 100;
+    public static final int DEFAULT_METERING_MAX_IN_FLIGHT = 4;
+    public static final int DEFAULT_METERING_MAX_QUEUED_RETRIES = 100;
+    public static final long METERING_INITIAL_BACKOFF = 5000;
+    public static final int DEFAULT_METERING_FLUSH_INTERVAL = 600000;
+    public static final long METERING_SPOOL_SEGMENT_SIZE = 1 << 20;
+    public static final String METERING_SPOOL_DIRECTORY = "appconfiguration-metering";
+    public static final int DEFAULT_SCHEDULER_THREADS = 2;
+    public static final long DEFAULT_CONFIG_RETRY_MIN_DELAY = 15000;
+    public static final long DEFAULT_CONFIG_RETRY_MAX_DELAY = 600000;
+    public static final long DEFAULT_CONFIG_UPDATE_QUIET_WINDOW = 500;
 
 }
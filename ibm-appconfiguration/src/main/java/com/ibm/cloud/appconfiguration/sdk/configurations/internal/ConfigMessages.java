@@ -42,5 +42,7 @@ public class ConfigMessages {
     public static final String FEATURE_INVALID = "Invalid featureId - ";
     public static final String PROPERTY_INVALID = "Invalid propertyId - ";
     public static final String FETCH_API_SUCCESSFUL = "Successfully fetched the configurations.";
-    public static final String API_RETRY_SCHEDULED_MESSAGE = "Scheduled the API request to retry after 10 minutes.";
+    public static final String CONFIG_EVENT_APPLIED = "Applied the configurations received from the socket.";
+    public static final String FETCH_API_NOT_MODIFIED = "The configurations are not modified.";
+    public static final String API_RETRY_SCHEDULED_MESSAGE = "Scheduled the API request to retry.";
 }
@@ -22,6 +22,9 @@ import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
 import java.net.Socket;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class consisting of various methods that handles the internet connectivity status of the SDK.
@@ -30,6 +33,9 @@ public class Connectivity {
 
     private static Connectivity instance;
     private List<ConnectivityListener> listeners = new ArrayList<>();
+    private RetryHandler checkTimer;
+    // the checks wait for the network, they run on a thread of their own rather than on the scheduler
+    private final ThreadPoolExecutor checkExecutor = checkExecutor();
     private final String className = this.getClass().getName();
 
     public static synchronized Connectivity getInstance() {
@@ -44,17 +50,39 @@ public class Connectivity {
     private Connectivity() {
     }
 
+    private static ThreadPoolExecutor checkExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "appconfiguration-connectivity");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     public void addConnectivityListener(ConnectivityListener listener) {
         listeners.add(listener);
     }
 
     private void start() {
-        new RetryHandler(new RetryInterface() {
+        this.checkTimer = new RetryHandler(new RetryInterface() {
             @Override
             public void retryMethod() {
                 checkConnection();
             }
-        }, 30000);
+        }, 30000, this.checkExecutor);
+    }
+
+    /**
+     * Stop checking the internet connection. A check that is already running completes.
+     */
+    public synchronized void stop() {
+        if (this.checkTimer != null) {
+            this.checkTimer.cancel();
+            this.checkTimer = null;
+        }
+        this.checkExecutor.shutdown();
     }
 
     /**
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size, thread safe count-min sketch. It estimates the number of occurrences of a key,
+ * never below the real count, using {@code DEPTH} rows of {@code WIDTH} counters.
+ */
+final class CountMinSketch {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 2048;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final AtomicLongArray counters = new AtomicLongArray(DEPTH * WIDTH);
+
+    /**
+     * Add occurrences of a key.
+     *
+     * @param hash hash code of the key
+     * @param count number of occurrences
+     * @return estimated number of occurrences of the key, including these ones
+     */
+    long add(int hash, long count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+            h ^= h >>> 16;
+            int index = row * WIDTH + (h & (WIDTH - 1));
+            estimate = Math.min(estimate, this.counters.addAndGet(index, count));
+        }
+        return estimate;
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
+
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EntityAttributes;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EvaluationResult;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of segment rule evaluation results.
+ * <p>
+ * Entries are keyed by the feature or property object, the entity id and the values of the attributes that
+ * its segments refer to. The cache is split into stripes that evict their least recently used entries
+ * once full, and entries expire after the configured time to live. {@link #invalidate()} drops all the
+ * entries at once by replacing the current generation.
+ */
+public class EvaluationCache {
+
+    private static final int STRIPES = 16;
+
+    private final int maxEntriesPerStripe;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Generation generation = new Generation();
+
+    /**
+     * @param maxEntries maximum number of entries held by the cache
+     * @param ttlMillis time to live of an entry in milliseconds. {@code 0} or less to never expire the entries
+     */
+    public EvaluationCache(int maxEntries, long ttlMillis) {
+        this.maxEntriesPerStripe = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        this.ttlNanos = ttlMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(ttlMillis) : 0;
+    }
+
+    /**
+     * Drop all the cached results. Lookups that started before the call keep writing to the old entries,
+     * which are no longer visible.
+     */
+    public void invalidate() {
+        this.generation = new Generation();
+    }
+
+    /**
+     * Build the key of an evaluation.
+     *
+     * @param configuration feature or property object that is evaluated
+     * @param entityId entity id, or {@code null} if the result doesn't depend on it
+     * @param entityAttributes entity attributes
+     * @param attributeResolver returns the names of the attributes the configuration depends on.
+     *                          Called once per configuration object and generation.
+     * @return the key
+     */
+    public Key newKey(Object configuration, String entityId, EntityAttributes entityAttributes,
+                      Function<Object, String[]> attributeResolver) {
+        Generation current = this.generation;
+        String[] names = current.attributeNames.computeIfAbsent(configuration, attributeResolver);
+        Object[] values = new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            values[i] = entityAttributes.getAttribute(names[i]);
+        }
+        return new Key(current, configuration, entityId, values);
+    }
+
+    /**
+     * Copy the cached result of the key into the holder.
+     *
+     * @param key the key
+     * @param result holder that receives the cached result
+     * @return {@code true} if the result was found in the cache
+     */
+    public boolean get(Key key, EvaluationResult result) {
+        Map<Key, CachedResult> stripe = key.generation.stripeFor(key);
+        CachedResult entry;
+        synchronized (stripe) {
+            entry = stripe.get(key);
+            if (entry != null && this.ttlNanos > 0 && System.nanoTime() - entry.expiresAt > 0) {
+                stripe.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            this.misses.increment();
+            return false;
+        }
+        this.hits.increment();
+        result.setValue(entry.value);
+        result.setEnabled(entry.enabled);
+        result.setEvaluatedSegmentId(entry.evaluatedSegmentId);
+        return true;
+    }
+
+    /**
+     * Store the result of the key.
+     *
+     * @param key the key
+     * @param result result of the evaluation
+     */
+    public void put(Key key, EvaluationResult result) {
+        CachedResult entry = new CachedResult(result.getValue(), result.isEnabled(), result.getEvaluatedSegmentId(),
+                System.nanoTime() + this.ttlNanos);
+        Map<Key, CachedResult> stripe = key.generation.stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, entry);
+        }
+    }
+
+    /**
+     * @return number of lookups that found a result
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return number of lookups that didn't find a result
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return number of entries in the current generation
+     */
+    public int size() {
+        int size = 0;
+        for (Map<Key, CachedResult> stripe : this.generation.stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private final class Generation {
+        private final ConcurrentHashMap<Object, String[]> attributeNames = new ConcurrentHashMap<>();
+        private final Map<Key, CachedResult>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        Generation() {
+            this.stripes = new Map[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                this.stripes[i] = new LinkedHashMap<Key, CachedResult>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+                        return size() > maxEntriesPerStripe;
+                    }
+                };
+            }
+        }
+
+        Map<Key, CachedResult> stripeFor(Key key) {
+            return this.stripes[(key.hash ^ (key.hash >>> 16)) & (STRIPES - 1)];
+        }
+    }
+
+    private static final class CachedResult {
+        private final Object value;
+        private final boolean enabled;
+        private final String evaluatedSegmentId;
+        private final long expiresAt;
+
+        CachedResult(Object value, boolean enabled, String evaluatedSegmentId, long expiresAt) {
+            this.value = value;
+            this.enabled = enabled;
+            this.evaluatedSegmentId = evaluatedSegmentId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Key of a cached evaluation.
+     */
+    public static final class Key {
+        private final Generation generation;
+        private final Object configuration;
+        private final String entityId;
+        private final Object[] values;
+        private final int hash;
+
+        private Key(Generation generation, Object configuration, String entityId, Object[] values) {
+            this.generation = generation;
+            this.configuration = configuration;
+            this.entityId = entityId;
+            this.values = values;
+            int h = System.identityHashCode(configuration);
+            h = 31 * h + (entityId == null ? 0 : entityId.hashCode());
+            this.hash = 31 * h + Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return this.configuration == other.configuration
+                    && (this.entityId == null ? other.entityId == null : this.entityId.equals(other.entityId))
+                    && Arrays.equals(this.values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -16,20 +16,39 @@
 
 package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
 
-import com.ibm.cloud.appconfiguration.sdk.core.AppConfigException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EvaluationResult;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.MeteringOverflowPolicy;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.RetryPolicy;
 import com.ibm.cloud.appconfiguration.sdk.core.ServiceImpl;
 import com.ibm.cloud.appconfiguration.sdk.core.BaseLogger;
-import com.ibm.cloud.appconfiguration.sdk.core.CoreConstants;
 
-import com.ibm.cloud.sdk.core.http.Response;
-import com.ibm.cloud.sdk.core.service.exception.ServiceResponseException;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 /**
  * Class consisting of methods that stores the feature and property evaluations metrics and send the metrics
@@ -38,16 +57,60 @@ import java.util.concurrent.ConcurrentHashMap;
 public class Metering {
 
     private static Metering instance;
-    private final int sendInterval = 600000;
+    private static final int DEFAULT_SEND_INTERVAL = ConfigConstants.DEFAULT_METERING_FLUSH_INTERVAL;
+    private static final long AGGREGATOR_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int ENTITY_SAMPLING_SCALE = 1 << 16;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    // reusable key that looks the usage rows up without allocating
+    private static final ThreadLocal<UsageKey> PROBE = ThreadLocal.withInitial(UsageKey::new);
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+    // usages sent in the same requests: features and properties of a collection
+    private static final Comparator<UsageKey> REQUEST_ORDER = Comparator
+            .comparing((UsageKey key) -> key.guid, NULLS_FIRST)
+            .thenComparing(key -> key.environmentId, NULLS_FIRST)
+            .thenComparing(key -> key.collectionId, NULLS_FIRST)
+            .thenComparing(key -> key.featureId == null);
     private String meteringUrl = null;
     private String apikey = null;
+    private final MeteringUploader uploader = new MeteringUploader(
+        body -> ServiceImpl.getInstance(this.apikey).postMetering(this.meteringUrl, body),
+        ConfigConstants.DEFAULT_METERING_MAX_IN_FLIGHT, ConfigConstants.DEFAULT_METERING_MAX_QUEUED_RETRIES,
+        RetryPolicy.exponentialBackoff(ConfigConstants.METERING_INITIAL_BACKOFF, DEFAULT_SEND_INTERVAL));
+
+    // flush policy
+    private int sendInterval = DEFAULT_SEND_INTERVAL;
+    private RetryHandler sendTimer;
+    private volatile int maxBufferedRows = 0;
+    private volatile int chunkSize = 0;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile Consumer<byte[]> requestSink = null;
+    private volatile Executor flushExecutor = this.uploader::execute;
+    private volatile long shutdownFlushTimeout = 0;
+    private boolean shutdownHookRegistered = false;
+    private MeteringSpool spool = null;
+    private File spoolDirectory = null;
+    private long spoolMaxBytes = 0;
+
+    /*
+     * Usage counters keyed by guid, environment, collection, feature or property, entity and segment.
+     * Recording an evaluation only increments a counter, it never takes a lock. Each send swaps the table
+     * and drains the swapped out table again on the next send, so that increments made by threads that still
+     * held the old table are not lost.
+     */
+    private volatile UsageTable usages = new UsageTable();
+    private UsageTable previousUsages = new UsageTable();
+
+    /*
+     * Cardinality limits of the usage table. Entities that are not sampled, or that don't fit in the table,
+     * are counted in a row without entity id, so that the counts stay exact while the table stays bounded.
+     */
+    private volatile int maxRows = ConfigConstants.DEFAULT_METERING_MAX_ROWS;
+    private volatile int entitySamplingThreshold = ENTITY_SAMPLING_SCALE;
 
-    ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String,
-        ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>>>>>> meteringFeatureData =
-            new ConcurrentHashMap();
-    ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String,
-        ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>>>>>> meteringPropertyData =
-            new ConcurrentHashMap();
+    // set when the evaluations are recorded asynchronously by the aggregator thread
+    private volatile Aggregator aggregator = null;
+    private final LongAdder droppedEvaluations = new LongAdder();
+    private long reportedDroppedEvaluations = 0;
 
     /**
      * @return instance of {@link Metering}
@@ -60,12 +123,94 @@ public class Metering {
     }
 
     private Metering() {
-        new RetryHandler(new RetryInterface() {
+        this.sendTimer = this.startSendTimer(this.sendInterval);
+    }
+
+    private RetryHandler startSendTimer(int interval) {
+        return new RetryHandler(new RetryInterface() {
             @Override
             public void retryMethod() {
-                sendMetering();
+                flush(false);
             }
-        }, sendInterval);
+        }, interval, this.uploader::execute);
+    }
+
+    /**
+     * Set when the recorded evaluations are sent to the server.
+     *
+     * @param sendInterval maximum time between two sends in milliseconds
+     * @param maxBufferedRows number of usage rows that triggers a send before the interval ends.
+     *                        {@code 0} or less to only send at the interval
+     * @param chunkSize maximum number of usages per request. {@code 0} or less to send up to 25 usages of a
+     *                  collection in one request, and more in requests of 10 usages
+     */
+    public synchronized void setFlushPolicy(int sendInterval, int maxBufferedRows, int chunkSize) {
+        if (sendInterval > 0 && sendInterval != this.sendInterval) {
+            this.sendTimer.cancel();
+            this.sendInterval = sendInterval;
+            this.sendTimer = this.startSendTimer(sendInterval);
+        }
+        this.maxBufferedRows = maxBufferedRows;
+        this.chunkSize = chunkSize;
+    }
+
+    /*
+     * Sets the executor of the sends triggered by the number of buffered rows, instead of the upload threads.
+     * Used by the tests only.
+     */
+    void setFlushExecutor(Executor executor) {
+        this.flushExecutor = executor != null ? executor : this.uploader::execute;
+    }
+
+    /*
+     * Receives the request bodies instead of the uploader, on the sending thread. Used by the tests only.
+     */
+    void setRequestSink(Consumer<byte[]> requestSink) {
+        this.requestSink = requestSink;
+    }
+
+    /**
+     * Send the recorded evaluations when the JVM shuts down.
+     *
+     * @param timeoutMillis maximum time the shutdown waits for the evaluations to be sent.
+     *                      {@code 0} or less to not send them on shutdown
+     */
+    public synchronized void setShutdownFlushTimeout(long timeoutMillis) {
+        this.shutdownFlushTimeout = timeoutMillis;
+        if (timeoutMillis > 0 && !this.shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                long timeout = this.shutdownFlushTimeout;
+                if (timeout > 0) {
+                    this.shutdown(timeout);
+                }
+            }, "appconfiguration-metering-shutdown"));
+            this.shutdownHookRegistered = true;
+        }
+    }
+
+    /**
+     * Send the recorded evaluations and wait for their upload, then stop the uploads.
+     * Evaluations recorded afterwards are not sent.
+     *
+     * @param timeoutMillis maximum time to wait in milliseconds
+     * @return {@code true} if all the evaluations were sent before the timeout
+     */
+    public boolean shutdown(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Thread aggregatorThread;
+        synchronized (this) {
+            aggregatorThread = this.stopAggregator();
+        }
+        try {
+            if (aggregatorThread != null) {
+                aggregatorThread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            }
+            this.flush(false);
+            return this.uploader.shutdown(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     /**
@@ -79,7 +224,92 @@ public class Metering {
     }
 
     /**
-     * Stores the feature and property evaluation metrics into hashmaps.
+     * Record the evaluations asynchronously. The evaluating threads publish them to a bounded buffer that is
+     * drained by a single background thread, instead of updating the counters themselves.
+     *
+     * @param bufferSize maximum number of evaluations waiting in the buffer
+     * @param overflowPolicy what to do with the evaluations while the buffer is full
+     */
+    public synchronized void enableAsyncMetering(int bufferSize, MeteringOverflowPolicy overflowPolicy) {
+        this.disableAsyncMetering();
+        Aggregator newAggregator = new Aggregator(new UsageRingBuffer<>(bufferSize), overflowPolicy);
+        Thread thread = new Thread(newAggregator, "appconfiguration-metering");
+        thread.setDaemon(true);
+        newAggregator.thread = thread;
+        thread.start();
+        this.aggregator = newAggregator;
+    }
+
+    /**
+     * Record the evaluations on the evaluating threads. The evaluations waiting in the buffer are recorded
+     * before the background thread stops, and before this method returns.
+     */
+    public synchronized void disableAsyncMetering() {
+        Thread aggregatorThread = this.stopAggregator();
+        if (aggregatorThread != null) {
+            try {
+                aggregatorThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Write the metering requests that could not be sent to an append-only spool on disk instead of holding
+     * them in memory, and replay them from it once the server accepts them again.
+     *
+     * @param directory directory of the spool. {@code null} to hold the failed requests in memory
+     * @param maxBytes maximum size of the spool in bytes. The requests that don't fit are dropped
+     */
+    public synchronized void setSpool(File directory, long maxBytes) {
+        if (directory == null || maxBytes <= 0) {
+            this.spool = null;
+            this.spoolDirectory = null;
+        } else if (!directory.equals(this.spoolDirectory) || maxBytes != this.spoolMaxBytes) {
+            this.spool = new MeteringSpool(directory, maxBytes,
+                    Math.min(maxBytes, ConfigConstants.METERING_SPOOL_SEGMENT_SIZE));
+            this.spoolDirectory = directory;
+            this.spoolMaxBytes = maxBytes;
+        }
+        this.uploader.setSpool(this.spool);
+    }
+
+    private Thread stopAggregator() {
+        Aggregator current = this.aggregator;
+        if (current == null) {
+            return null;
+        }
+        this.aggregator = null;
+        current.running = false;
+        LockSupport.unpark(current.thread);
+        return current.thread;
+    }
+
+    /**
+     * Limit the number of usage rows held between two sends.
+     *
+     * @param maxRows maximum number of rows with an entity id. Once reached, only the entities whose
+     *                evaluation count is high get their own row, in a headroom of a tenth of the rows, and the
+     *                evaluations of the other entities are counted without entity id. {@code 0} or less for no limit.
+     * @param entitySamplingRate fraction, between 0 and 1, of the entities metered with their entity id.
+     *                           The evaluations of the other entities are counted without entity id.
+     */
+    public void setMeteringLimits(int maxRows, double entitySamplingRate) {
+        this.maxRows = maxRows;
+        double rate = Math.max(0, Math.min(1, entitySamplingRate));
+        this.entitySamplingThreshold = (int) Math.round(rate * ENTITY_SAMPLING_SCALE);
+    }
+
+    /**
+     * @return number of evaluations that were not recorded because the asynchronous metering buffer was full
+     */
+    public long getDroppedEvaluationCount() {
+        return this.droppedEvaluations.sum();
+    }
+
+    /**
+     * Stores the feature and property evaluation metrics.
      *
      * @param guid guid of App Configuration service instance
      * @param environmentId environment id of App Configuration service instance
@@ -89,165 +319,262 @@ public class Metering {
      * @param featureId feature id
      * @param propertyId property id
      */
-    public synchronized void addMetering(String guid, String environmentId, String collectionId, String entityId,
-                                        String segmentId, String featureId, String propertyId) {
-        boolean hasData = false;
-        HashMap<String, Object> featureJson = new HashMap();
-        featureJson.put(ConfigConstants.COUNT, 1);
-        String currentDateTime = ServiceImpl.getCurrentDateTime();
-        featureJson.put(ConfigConstants.EVALUATION_TIME, currentDateTime);
-
-        ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String,
-            ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>>>>>> meteringData
-                = featureId != null ? this.meteringFeatureData : this.meteringPropertyData;
-        String modifyKey = featureId != null ? featureId : propertyId;
-
-        if (meteringData.containsKey(guid)) {
-
-            if (meteringData.get(guid).containsKey(environmentId)) {
-
-                if (meteringData.get(guid).get(environmentId).containsKey(collectionId)) {
-                    if (meteringData.get(guid).get(environmentId).get(collectionId).containsKey(modifyKey)) {
-                        if (meteringData.get(guid).get(environmentId).get(collectionId)
-                            .get(modifyKey).containsKey(entityId)) {
-                            if (meteringData.get(guid).get(environmentId).get(collectionId).get(modifyKey).
-                                get(entityId).containsKey(segmentId)) {
-                                hasData = true;
-                                meteringData.get(guid).get(environmentId).get(collectionId).get(modifyKey).
-                                    get(entityId).get(segmentId).put(ConfigConstants.EVALUATION_TIME, currentDateTime);
-                                int count = (int) meteringData.get(guid).get(environmentId).get(collectionId).
-                                            get(modifyKey).get(entityId).get(segmentId).get(ConfigConstants.COUNT);
-                                meteringData.get(guid).get(environmentId).get(collectionId).get(modifyKey).
-                                    get(entityId).get(segmentId).put(ConfigConstants.COUNT, count + 1);
-                            }
-                        } else {
-                            ConcurrentHashMap<String, HashMap<String, Object>> segmentIdMap = new ConcurrentHashMap();
-                            segmentIdMap.put(segmentId, new HashMap());
-                            meteringData.get(guid).get(environmentId).get(collectionId).get(modifyKey).put(entityId, segmentIdMap);
-                        }
-                    } else {
-                        ConcurrentHashMap<String, HashMap<String, Object>> segmentIdMap = new ConcurrentHashMap();
-                        ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>> entityIdMap = new ConcurrentHashMap();
-                        segmentIdMap.put(segmentId, new HashMap());
-                        entityIdMap.put(entityId, segmentIdMap);
-                        meteringData.get(guid).get(environmentId).get(collectionId).put(modifyKey, entityIdMap);
-                    }
-                } else {
-                    ConcurrentHashMap<String, HashMap<String, Object>> segmentIdMap = new ConcurrentHashMap();
-                    ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>> entityIdMap = new ConcurrentHashMap();
-                    ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>>> featureIdMap = new ConcurrentHashMap();
-                    segmentIdMap.put(segmentId, new HashMap());
-                    entityIdMap.put(entityId, segmentIdMap);
-                    featureIdMap.put(modifyKey, entityIdMap);
-                    meteringData.get(guid).get(environmentId).put(collectionId, featureIdMap);
-                }
+    public void addMetering(String guid, String environmentId, String collectionId, String entityId,
+                            String segmentId, String featureId, String propertyId) {
+        UsageKey probe = PROBE.get().set(guid, environmentId, collectionId, featureId, propertyId,
+                this.meteredEntityId(entityId), segmentId);
+        Aggregator current = this.aggregator;
+        if (current == null) {
+            this.record(this.usages, probe, currentEpochSecond(), 1);
+        } else {
+            this.publish(current, probe.copy(), currentEpochSecond());
+        }
+    }
+
+    /**
+     * Stores the metrics of the evaluations of several features and properties for one entity.
+     * The entity sampling, the evaluation time and the usage table are resolved once for the whole batch.
+     *
+     * @param guid guid of App Configuration service instance
+     * @param environmentId environment id of App Configuration service instance
+     * @param collectionId collection id
+     * @param entityId entity id
+     * @param featureResults evaluation results by feature id
+     * @param propertyResults evaluation results by property id
+     */
+    public void addMetering(String guid, String environmentId, String collectionId, String entityId,
+                            Map<String, EvaluationResult> featureResults,
+                            Map<String, EvaluationResult> propertyResults) {
+        long currentDateTime = currentEpochSecond();
+        String meteredEntityId = this.meteredEntityId(entityId);
+        Aggregator current = this.aggregator;
+        UsageTable table = this.usages;
+        UsageKey probe = PROBE.get();
+        for (Map.Entry<String, EvaluationResult> feature : featureResults.entrySet()) {
+            probe.set(guid, environmentId, collectionId, feature.getKey(), null, meteredEntityId,
+                    feature.getValue().getEvaluatedSegmentId());
+            if (current == null) {
+                this.record(table, probe, currentDateTime, 1);
+            } else {
+                this.publish(current, probe.copy(), currentDateTime);
+            }
+        }
+        for (Map.Entry<String, EvaluationResult> property : propertyResults.entrySet()) {
+            probe.set(guid, environmentId, collectionId, null, property.getKey(), meteredEntityId,
+                    property.getValue().getEvaluatedSegmentId());
+            if (current == null) {
+                this.record(table, probe, currentDateTime, 1);
             } else {
+                this.publish(current, probe.copy(), currentDateTime);
+            }
+        }
+    }
 
-                ConcurrentHashMap<String, HashMap<String, Object>> segmentIdMap = new ConcurrentHashMap();
-                ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>> entityIdMap = new ConcurrentHashMap();
-                ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>>> featureIdMap = new ConcurrentHashMap();
-                ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>>>> collectionIdMap = new ConcurrentHashMap();
-                segmentIdMap.put(segmentId, new HashMap());
-                entityIdMap.put(entityId, segmentIdMap);
-                featureIdMap.put(modifyKey, entityIdMap);
-                collectionIdMap.put(collectionId, featureIdMap);
-                meteringData.get(guid).put(environmentId, collectionIdMap);
+    private String meteredEntityId(String entityId) {
+        int threshold = this.entitySamplingThreshold;
+        if (threshold < ENTITY_SAMPLING_SCALE && entityId != null) {
+            // the same entities are always sampled, so that their rows are complete
+            int h = entityId.hashCode() * 0x9E3779B9;
+            if ((h >>> 16) >= threshold) {
+                return ConfigConstants.DEFAULT_ENTITY_ID;
             }
-        } else {
-            ConcurrentHashMap<String, HashMap<String, Object>> segmentIdMap = new ConcurrentHashMap();
-            ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>> entityIdMap = new ConcurrentHashMap();
-            ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>>> featureIdMap = new ConcurrentHashMap();
-            ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>>>> collectionIdMap = new ConcurrentHashMap();
-            ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String,
-                ConcurrentHashMap<String, HashMap<String, Object>>>>>> environmentIdMap = new ConcurrentHashMap();
-            segmentIdMap.put(segmentId, new HashMap());
-            entityIdMap.put(entityId, segmentIdMap);
-            featureIdMap.put(modifyKey, entityIdMap);
-            collectionIdMap.put(collectionId, featureIdMap);
-            environmentIdMap.put(environmentId, collectionIdMap);
-            meteringData.put(guid, environmentIdMap);
-        }
-        if (!hasData) {
-            meteringData.get(guid).get(environmentId).get(collectionId).get(modifyKey).get(entityId).put(segmentId, featureJson);
-        }
-    }
-
-    private synchronized void buildRequestBody(ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String,
-        ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>>>>>> sendMeteringData, HashMap<String, JSONArray> result, String key) {
-        sendMeteringData.forEach((guid, guidMap) -> {
-
-            if (!result.containsKey(guid)) {
-                result.put(guid, new JSONArray());
+        }
+        return entityId;
+    }
+
+    /*
+     * The evaluation time is kept in seconds since the epoch and only formatted when the usages are sent.
+     */
+    private static long currentEpochSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private void publish(Aggregator current, UsageKey key, long evaluationTime) {
+        UsageRingBuffer<UsageKey> buffer = current.buffer;
+        int weight = 1;
+        if (current.overflowPolicy == MeteringOverflowPolicy.SAMPLE && buffer.size() > buffer.capacity() / 2) {
+            if (ThreadLocalRandom.current().nextInt(ConfigConstants.METERING_SAMPLE_RATE) != 0) {
+                return;
             }
-            guidMap.forEach((environmentId, environmentMap) -> {
-                environmentMap.forEach((collectionId, collectionMap) -> {
-                    JSONObject collections = new JSONObject();
-                    collections.put(ConfigConstants.COLLECTION_ID, collectionId);
-                    collections.put(ConfigConstants.ENVIRONMENT_ID, environmentId);
-                    collections.put(ConfigConstants.USAGES, new JSONArray());
-
-                    collectionMap.forEach((featureId, featureIdMap) -> {
-                        featureIdMap.forEach((entityId, entityMap) -> {
-                            entityMap.forEach((segmentId, segmentIdMap) -> {
-                                JSONObject usages = new JSONObject();
-                                usages.put(key, featureId);
-                                usages.put(ConfigConstants.ENTITY_ID,
-                                        entityId.equals(ConfigConstants.DEFAULT_ENTITY_ID) ? JSONObject.NULL : entityId);
-                                usages.put(ConfigConstants.SEGMENT_ID,
-                                        segmentId.equals(ConfigConstants.DEFAULT_SEGMENT_ID) ? JSONObject.NULL : segmentId);
-                                usages.put(ConfigConstants.EVALUATION_TIME, segmentIdMap.get(ConfigConstants.EVALUATION_TIME));
-                                usages.put(ConfigConstants.COUNT, segmentIdMap.get(ConfigConstants.COUNT));
-                                collections.getJSONArray(ConfigConstants.USAGES).put(usages);
-                            });
-                        });
-                    });
-                    result.get(guid).put(collections);
-                });
+            weight = ConfigConstants.METERING_SAMPLE_RATE;
+        }
+        if (!buffer.offer(key, evaluationTime, weight)) {
+            this.droppedEvaluations.add(weight);
+        }
+    }
+
+    /*
+     * The key can be the probe of the calling thread. It is only copied when the row is created, so that
+     * recording an evaluation in an existing row doesn't allocate.
+     */
+    private void record(UsageTable table, UsageKey key, long evaluationTime, int count) {
+        Usage usage = table.rows.get(key);
+        boolean newRow = usage == null;
+        if (newRow) {
+            usage = table.rowFor(key.copy(), count, this.maxRows);
+        }
+        // the time is written first, so that a counter read by a send always has its evaluation time.
+        // It changes once per second, so most evaluations only read it.
+        if (evaluationTime > usage.evaluationTime) {
+            usage.evaluationTime = evaluationTime;
+        }
+        usage.count.add(count);
+        // the flush is requested once the evaluation is counted, so that it is part of the send
+        int flushRows = this.maxBufferedRows;
+        if (newRow && flushRows > 0 && table.rows.size() >= flushRows) {
+            this.requestFlush();
+        }
+    }
+
+    private void requestFlush() {
+        // one send at a time, on an upload thread rather than the evaluating thread
+        if (this.flushRequested.compareAndSet(false, true)) {
+            this.flushExecutor.execute(() -> {
+                this.flushRequested.set(false);
+                this.flush(false);
             });
+        }
+    }
 
+    private void drain(UsageTable table, HashMap<UsageKey, Usage> rows) {
+        table.rows.forEach((key, usage) -> {
+            // subtract what is read rather than resetting, so that concurrent increments stay in the counter
+            long count = usage.count.sum();
+            if (count == 0) {
+                return;
+            }
+            usage.count.add(-count);
+            Usage row = rows.computeIfAbsent(key, k -> new Usage());
+            row.count.add(count);
+            row.evaluationTime = Math.max(row.evaluationTime, usage.evaluationTime);
         });
     }
 
+    /*
+     * Writes the usages of the rows from..to, that are the features or the properties of the same collection, as
+     * the body of a metering request.
+     */
+    private byte[] buildRequestBody(List<UsageKey> keys, HashMap<UsageKey, Usage> rows, int from, int to) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(128 + 192 * (to - from));
+        UsageKey first = keys.get(from);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(body)) {
+            generator.writeStartObject();
+            generator.writeStringField(ConfigConstants.COLLECTION_ID, first.collectionId);
+            generator.writeStringField(ConfigConstants.ENVIRONMENT_ID, first.environmentId);
+            generator.writeArrayFieldStart(ConfigConstants.USAGES);
+            for (int i = from; i < to; i++) {
+                UsageKey key = keys.get(i);
+                Usage usage = rows.get(key);
+                generator.writeStartObject();
+                if (key.featureId != null) {
+                    generator.writeStringField(ConfigConstants.FEATURE_ID, key.featureId);
+                } else {
+                    generator.writeStringField(ConfigConstants.PROPERTY_ID, key.propertyId);
+                }
+                generator.writeStringField(ConfigConstants.ENTITY_ID,
+                        ConfigConstants.DEFAULT_ENTITY_ID.equals(key.entityId) ? null : key.entityId);
+                generator.writeStringField(ConfigConstants.SEGMENT_ID,
+                        ConfigConstants.DEFAULT_SEGMENT_ID.equals(key.segmentId) ? null : key.segmentId);
+                generator.writeStringField(ConfigConstants.EVALUATION_TIME,
+                        DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(usage.evaluationTime)));
+                generator.writeNumberField(ConfigConstants.COUNT, usage.count.sum());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // not thrown when writing to memory
+            throw new UncheckedIOException(e);
+        }
+        return body.toByteArray();
+    }
+
     /**
      * Sends the evaluation metrics data to App Configuration billing server.
      *
-     * @return JSON data constructed out of hashmaps
+     * @return JSON data of the usages that were sent, by guid. One object per collection for the features and
+     *         one for the properties, whatever the number of requests they were sent in
      */
-    public synchronized HashMap sendMetering() {
-        ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String,
-            ConcurrentHashMap<String, ConcurrentHashMap<String, HashMap<String, Object>>>>>>> sendFeatureData = this.meteringFeatureData;
-        ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String,
-            ConcurrentHashMap<String, HashMap<String, Object>>>>>>> sendPropertyData = this.meteringPropertyData;
-
-        this.meteringFeatureData = new ConcurrentHashMap();
-        this.meteringPropertyData = new ConcurrentHashMap();
+    public HashMap sendMetering() {
+        return this.flush(true);
+    }
 
-        if (sendFeatureData.size() <= 0 && sendPropertyData.size() <= 0) {
-            return new HashMap();
+    /*
+     * Sends the recorded usages. The usages of the features and those of the properties of a collection are sent
+     * in separate requests, split in chunks when there are many. The JSON data of the sent usages is only built
+     * when report is set, the requests themselves are streamed.
+     */
+    private synchronized HashMap<String, JSONArray> flush(boolean report) {
+        UsageTable sendUsages = this.usages;
+        this.usages = new UsageTable();
+
+        HashMap<UsageKey, Usage> rows = new HashMap<>();
+        this.drain(this.previousUsages, rows);
+        this.drain(sendUsages, rows);
+        this.previousUsages = sendUsages;
+
+        long dropped = this.droppedEvaluations.sum();
+        if (dropped > this.reportedDroppedEvaluations) {
+            BaseLogger.warning((dropped - this.reportedDroppedEvaluations)
+                    + " evaluations were not metered because the metering buffer was full.");
+            this.reportedDroppedEvaluations = dropped;
         }
 
-        HashMap<String, JSONArray> result = new HashMap();
-
-        if (sendFeatureData.size() > 0) {
-            this.buildRequestBody(sendFeatureData, result, ConfigConstants.FEATURE_ID);
+        HashMap<String, JSONArray> result = new HashMap<>();
+        if (rows.isEmpty()) {
+            return result;
         }
 
-        if (sendPropertyData.size() > 0) {
-            this.buildRequestBody(sendPropertyData, result, ConfigConstants.PROPERTY_ID);
+        List<UsageKey> keys = new ArrayList<>(rows.keySet());
+        keys.sort(REQUEST_ORDER);
+        int start = 0;
+        while (start < keys.size()) {
+            UsageKey first = keys.get(start);
+            int end = start + 1;
+            while (end < keys.size() && REQUEST_ORDER.compare(first, keys.get(end)) == 0) {
+                end++;
+            }
+            int chunkSize = this.chunkSize > 0 ? this.chunkSize
+                    : end - start > 25 ? ConfigConstants.DEFAULT_USAGE_LIMIT : end - start;
+            for (int from = start; from < end; from += chunkSize) {
+                this.sendToServer(this.buildRequestBody(keys, rows, from, Math.min(from + chunkSize, end)));
+            }
+            if (report) {
+                result.computeIfAbsent(first.guid, k -> new JSONArray()).put(this.toJson(keys, rows, start, end));
+            }
+            start = end;
         }
-        result.forEach((guid, dataArray) -> {
-            dataArray.forEach((json) -> {
-                int count = ((JSONObject) json).getJSONArray(ConfigConstants.USAGES).length();
-                if (count > 25) {
-                    this.sendSplitMetering((JSONObject) json, count);
-                } else {
-                    this.sendToServer((JSONObject) json);
-                }
-            });
-        });
         return result;
     }
 
+    private JSONObject toJson(List<UsageKey> keys, HashMap<UsageKey, Usage> rows, int from, int to) {
+        UsageKey first = keys.get(from);
+        JSONArray usages = new JSONArray();
+        for (int i = from; i < to; i++) {
+            UsageKey key = keys.get(i);
+            Usage usage = rows.get(key);
+            JSONObject json = new JSONObject();
+            if (key.featureId != null) {
+                json.put(ConfigConstants.FEATURE_ID, key.featureId);
+            } else {
+                json.put(ConfigConstants.PROPERTY_ID, key.propertyId);
+            }
+            json.put(ConfigConstants.ENTITY_ID,
+                    ConfigConstants.DEFAULT_ENTITY_ID.equals(key.entityId) ? JSONObject.NULL : key.entityId);
+            json.put(ConfigConstants.SEGMENT_ID,
+                    ConfigConstants.DEFAULT_SEGMENT_ID.equals(key.segmentId) ? JSONObject.NULL : key.segmentId);
+            json.put(ConfigConstants.EVALUATION_TIME,
+                    DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(usage.evaluationTime)));
+            json.put(ConfigConstants.COUNT, usage.count.sum());
+            usages.put(json);
+        }
+        JSONObject collection = new JSONObject();
+        collection.put(ConfigConstants.COLLECTION_ID, first.collectionId);
+        collection.put(ConfigConstants.ENVIRONMENT_ID, first.environmentId);
+        collection.put(ConfigConstants.USAGES, usages);
+        return collection;
+    }
+
     public void sendSplitMetering(JSONObject data, int count) {
         int lim = 0;
 
@@ -263,42 +590,159 @@ public class Metering {
                 usagesArray.put(subUsagesArray.get(i));
             }
             collectionsMap.put(ConfigConstants.USAGES, usagesArray);
-            this.sendToServer(collectionsMap);
+            this.sendToServer(collectionsMap.toString().getBytes(StandardCharsets.UTF_8));
             lim += ConfigConstants.DEFAULT_USAGE_LIMIT;
         }
     }
 
-    private void sendToServer(JSONObject data) {
-        Response response;
-        try {
-            response = ServiceImpl.getInstance(this.apikey).postMetering(this.meteringUrl, data);
-            if (response.getStatusCode() == CoreConstants.REQUEST_SUCCESS_202) {
-                BaseLogger.debug("Successfully pushed the metering data.");
-            }
-        } catch (ServiceResponseException e) {
-            BaseLogger.error("Exception occurred while sending metering data to server. Status code:" + e.getStatusCode() + " message: " + e.getMessage());
-            if (e.getStatusCode() == CoreConstants.TOO_MANY_REQUESTS || (e.getStatusCode() >= CoreConstants.SERVER_ERROR_BEGIN && e.getStatusCode() <= CoreConstants.SERVER_ERROR_END)) {
-                Timer timer = new Timer(true);
-                timer.schedule(new TimerTask() {
-                    @Override
-                    public void run() {
-                        sendToServer(data);
-                        timer.cancel();
-                    }
-                }, sendInterval);
+    private void sendToServer(byte[] data) {
+        Consumer<byte[]> sink = this.requestSink;
+        if (sink != null) {
+            sink.accept(data);
+            return;
+        }
+        this.uploader.upload(data);
+    }
+
+    /**
+     * Limit the concurrent metering uploads.
+     *
+     * @param maxInFlight maximum number of metering requests sent at the same time
+     * @param maxQueuedRetries maximum number of failed metering requests waiting to be retried
+     */
+    public void setUploadLimits(int maxInFlight, int maxQueuedRetries) {
+        this.uploader.setLimits(maxInFlight, maxQueuedRetries);
+    }
+
+    private final class Aggregator implements Runnable {
+        private final UsageRingBuffer<UsageKey> buffer;
+        private final MeteringOverflowPolicy overflowPolicy;
+        private final UsageRingBuffer.Sink<UsageKey> sink = (key, evaluationTime, count) ->
+                Metering.this.record(Metering.this.usages, key, evaluationTime, count);
+        private volatile boolean running = true;
+        private Thread thread;
+
+        Aggregator(UsageRingBuffer<UsageKey> buffer, MeteringOverflowPolicy overflowPolicy) {
+            this.buffer = buffer;
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        @Override
+        public void run() {
+            while (this.running) {
+                if (this.buffer.drain(this.sink) == 0) {
+                    LockSupport.parkNanos(AGGREGATOR_IDLE_NANOS);
+                }
             }
-        } catch (Exception e) {
-            AppConfigException.logException(this.getClass().getName(), "sendToServer", e);
-            Timer timer = new Timer(true);
-            timer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    sendToServer(data);
-                    timer.cancel();
+            // let the threads that published to this buffer before it was replaced finish, then record the rest
+            LockSupport.parkNanos(AGGREGATOR_IDLE_NANOS);
+            this.buffer.drain(this.sink);
+        }
+    }
+
+    private static final class UsageTable {
+        private final ConcurrentHashMap<UsageKey, Usage> rows = new ConcurrentHashMap<>();
+        private final CountMinSketch sketch = new CountMinSketch();
+        private final AtomicInteger heavyHitterRows = new AtomicInteger();
+
+        Usage rowFor(UsageKey key, int count, int maxRows) {
+            if (maxRows > 0 && !key.isAggregate() && this.rows.size() >= maxRows) {
+                // the table is full, only the entities evaluated often still get their own row
+                int headroom = Math.max(1, maxRows / 10);
+                long estimate = this.sketch.add(key.hashCode(), count);
+                if (estimate < ConfigConstants.METERING_HEAVY_HITTER_THRESHOLD
+                        || this.heavyHitterRows.get() >= headroom
+                        || this.heavyHitterRows.incrementAndGet() > headroom) {
+                    key = key.withoutEntity();
                 }
-            }, sendInterval);
+            }
+            Usage usage = this.rows.get(key);
+            return usage != null ? usage : this.rows.computeIfAbsent(key, k -> new Usage());
         }
     }
-}
 
+    private static final class Usage {
+        private final LongAdder count = new LongAdder();
+        private volatile long evaluationTime;
+    }
+
+    /*
+     * Keys held by the usage tables and the ring buffer are never changed. Only the probes returned by PROBE are
+     * reused, through set(), and copied before they are held.
+     */
+    private static final class UsageKey {
+        private String guid;
+        private String environmentId;
+        private String collectionId;
+        private String featureId;
+        private String propertyId;
+        private String entityId;
+        private String segmentId;
+        private int hash;
+
+        UsageKey() {
+        }
+
+        UsageKey(String guid, String environmentId, String collectionId, String featureId, String propertyId,
+                 String entityId, String segmentId) {
+            this.set(guid, environmentId, collectionId, featureId, propertyId, entityId, segmentId);
+        }
+
+        UsageKey set(String guid, String environmentId, String collectionId, String featureId, String propertyId,
+                     String entityId, String segmentId) {
+            this.guid = guid;
+            this.environmentId = environmentId;
+            this.collectionId = collectionId;
+            this.featureId = featureId;
+            this.propertyId = propertyId;
+            this.entityId = entityId;
+            this.segmentId = segmentId;
+            int h = guid == null ? 0 : guid.hashCode();
+            h = 31 * h + (environmentId == null ? 0 : environmentId.hashCode());
+            h = 31 * h + (collectionId == null ? 0 : collectionId.hashCode());
+            h = 31 * h + (featureId == null ? 0 : featureId.hashCode());
+            h = 31 * h + (propertyId == null ? 0 : propertyId.hashCode());
+            h = 31 * h + (entityId == null ? 0 : entityId.hashCode());
+            this.hash = 31 * h + (segmentId == null ? 0 : segmentId.hashCode());
+            return this;
+        }
+
+        UsageKey copy() {
+            return new UsageKey(this.guid, this.environmentId, this.collectionId, this.featureId, this.propertyId,
+                    this.entityId, this.segmentId);
+        }
+
+        boolean isAggregate() {
+            return ConfigConstants.DEFAULT_ENTITY_ID.equals(this.entityId);
+        }
+
+        UsageKey withoutEntity() {
+            return new UsageKey(this.guid, this.environmentId, this.collectionId, this.featureId, this.propertyId,
+                    ConfigConstants.DEFAULT_ENTITY_ID, this.segmentId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof UsageKey)) {
+                return false;
+            }
+            UsageKey other = (UsageKey) o;
+            return this.hash == other.hash
+                    && Objects.equals(this.featureId, other.featureId)
+                    && Objects.equals(this.propertyId, other.propertyId)
+                    && Objects.equals(this.entityId, other.entityId)
+                    && Objects.equals(this.segmentId, other.segmentId)
+                    && Objects.equals(this.collectionId, other.collectionId)
+                    && Objects.equals(this.environmentId, other.environmentId)
+                    && Objects.equals(this.guid, other.guid);
+        }
 
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
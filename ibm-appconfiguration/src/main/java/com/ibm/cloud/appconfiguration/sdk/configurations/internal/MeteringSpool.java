@@ -0,0 +1,215 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
+
+import com.ibm.cloud.appconfiguration.sdk.core.AppConfigException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Append-only spool of the metering request bodies that could not be sent.
+ * <p>
+ * The bodies are written one per line to segment files of a capped size in a directory. The segments are
+ * numbered in the order they are created, so that the oldest bodies are replayed first, also by the next
+ * process that uses the same directory. A segment is removed only once its bodies are delivered, a process that
+ * stops in between delivers them again. Once the total size of the segments reaches the limit, new bodies
+ * are rejected.
+ */
+public class MeteringSpool {
+
+    private static final String SEGMENT_PREFIX = "metering-";
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+
+    private final File directory;
+    private final long maxBytes;
+    private final long maxSegmentBytes;
+    private final TreeMap<Long, File> segments = new TreeMap<>();
+    private long totalBytes = 0;
+    private long nextSequence = 0;
+    private File activeSegment = null;
+    private long activeSegmentBytes = 0;
+
+    /**
+     * @param directory directory of the segment files, created if it doesn't exist
+     * @param maxBytes maximum total size of the segments in bytes
+     * @param maxSegmentBytes size in bytes above which a new segment is started
+     */
+    public MeteringSpool(File directory, long maxBytes, long maxSegmentBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxSegmentBytes = maxSegmentBytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            AppConfigException.logException(this.getClass().getName(), "MeteringSpool",
+                    new IOException("Unable to create the metering spool directory " + directory));
+        }
+        File[] files = directory.listFiles();
+        for (File file : files != null ? files : new File[0]) {
+            long sequence = sequenceOf(file.getName());
+            if (sequence >= 0) {
+                this.segments.put(sequence, file);
+                this.totalBytes += file.length();
+                this.nextSequence = Math.max(this.nextSequence, sequence + 1);
+            }
+        }
+    }
+
+    private static long sequenceOf(String name) {
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Append a request body to the spool.
+     *
+     * @param body the request body, without line breaks
+     * @return {@code false} if the spool is full or the body could not be written
+     */
+    public synchronized boolean append(byte[] body) {
+        long length = body.length + 1L;
+        if (this.totalBytes + length > this.maxBytes) {
+            return false;
+        }
+        if (this.activeSegment == null || (this.activeSegmentBytes > 0 && this.activeSegmentBytes + length > this.maxSegmentBytes)) {
+            long sequence = this.nextSequence++;
+            this.activeSegment = new File(this.directory, String.format("%s%019d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+            this.activeSegmentBytes = 0;
+            this.segments.put(sequence, this.activeSegment);
+        }
+        byte[] line = Arrays.copyOf(body, body.length + 1);
+        line[body.length] = '\n';
+        try (OutputStream out = new FileOutputStream(this.activeSegment, true)) {
+            out.write(line);
+        } catch (IOException e) {
+            AppConfigException.logException(this.getClass().getName(), "append", e);
+            return false;
+        }
+        this.activeSegmentBytes += length;
+        this.totalBytes += length;
+        return true;
+    }
+
+    /**
+     * Read the oldest segment of the spool, without removing it. The bodies appended afterwards go to a new
+     * segment, so that the segment doesn't change until its bodies are removed with {@link #remove(int)}.
+     *
+     * @return the request bodies of the segment, or {@code null} if the spool is empty
+     */
+    public synchronized List<byte[]> peek() {
+        while (!this.segments.isEmpty()) {
+            File segment = this.segments.firstEntry().getValue();
+            if (segment == this.activeSegment) {
+                this.activeSegment = null;
+            }
+            try {
+                return lines(Files.readAllBytes(segment.toPath()));
+            } catch (IOException e) {
+                AppConfigException.logException(this.getClass().getName(), "peek", e);
+                this.segments.pollFirstEntry();
+                this.totalBytes -= segment.length();
+            }
+        }
+        this.totalBytes = 0;
+        return null;
+    }
+
+    /**
+     * Remove the first bodies of the oldest segment, once they are delivered. The segment is deleted when all its
+     * bodies are removed, otherwise the bodies left are rewritten in it, so that they are still replayed first.
+     *
+     * @param count number of bodies to remove
+     */
+    public synchronized void remove(int count) {
+        if (this.segments.isEmpty()) {
+            return;
+        }
+        File segment = this.segments.firstEntry().getValue();
+        if (segment == this.activeSegment) {
+            this.activeSegment = null;
+        }
+        long length = segment.length();
+        try {
+            List<byte[]> bodies = lines(Files.readAllBytes(segment.toPath()));
+            if (count >= bodies.size()) {
+                Files.delete(segment.toPath());
+                this.segments.pollFirstEntry();
+                this.totalBytes -= length;
+                return;
+            }
+            if (count <= 0) {
+                return;
+            }
+            File rest = new File(this.directory, segment.getName() + ".tmp");
+            try (OutputStream out = new FileOutputStream(rest)) {
+                for (byte[] body : bodies.subList(count, bodies.size())) {
+                    out.write(body);
+                    out.write('\n');
+                }
+            }
+            Files.move(rest.toPath(), segment.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            this.totalBytes += segment.length() - length;
+        } catch (IOException e) {
+            AppConfigException.logException(this.getClass().getName(), "remove", e);
+        }
+    }
+
+    /*
+     * Split the segment in lines. A last line without line break was cut by a crash and is skipped.
+     */
+    private static List<byte[]> lines(byte[] content) {
+        List<byte[]> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == '\n') {
+                if (i > start) {
+                    lines.add(Arrays.copyOfRange(content, start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @return {@code true} if no body is waiting in the spool
+     */
+    public synchronized boolean isEmpty() {
+        return this.segments.isEmpty();
+    }
+
+    /**
+     * @return total size of the segments in bytes
+     */
+    public synchronized long getSize() {
+        return this.totalBytes;
+    }
+}
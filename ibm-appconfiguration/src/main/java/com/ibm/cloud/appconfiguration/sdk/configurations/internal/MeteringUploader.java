@@ -0,0 +1,261 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
+
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.RetryPolicy;
+import com.ibm.cloud.appconfiguration.sdk.core.AppConfigException;
+import com.ibm.cloud.appconfiguration.sdk.core.BaseLogger;
+import com.ibm.cloud.appconfiguration.sdk.core.CoreConstants;
+import com.ibm.cloud.sdk.core.service.exception.ServiceResponseException;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Uploads the metering request bodies on a small pool of threads.
+ * <p>
+ * A body that fails with a server error, a rate limit or a connection error is retried after the delays of a
+ * {@link RetryPolicy}, on the {@link BackgroundScheduler}. The number of bodies waiting for a retry is capped, the bodies beyond the
+ * cap are dropped.
+ * <p>
+ * When a {@link MeteringSpool} is set, the failed bodies are written to it instead of being held in memory, and
+ * are replayed from it with the same delays until the server accepts them again.
+ */
+public class MeteringUploader {
+
+    /**
+     * Sends one request body to the server.
+     */
+    public interface Sender {
+        void send(byte[] body) throws Exception;
+    }
+
+    private final Sender sender;
+    private final RetryPolicy retryPolicy;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger queuedRetries = new AtomicInteger();
+    private final LongAdder droppedBodies = new LongAdder();
+    private volatile int maxQueuedRetries;
+    private volatile MeteringSpool spool = null;
+    private final AtomicBoolean replayScheduled = new AtomicBoolean();
+
+    /**
+     * @param sender sends a request body
+     * @param maxInFlight maximum number of bodies sent at the same time
+     * @param maxQueuedRetries maximum number of bodies waiting for a retry
+     * @param retryPolicy the delays between the retries of a body
+     */
+    public MeteringUploader(Sender sender, int maxInFlight, int maxQueuedRetries, RetryPolicy retryPolicy) {
+        this.sender = sender;
+        this.retryPolicy = retryPolicy;
+        this.maxQueuedRetries = maxQueuedRetries;
+        int threads = Math.max(1, maxInFlight);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                daemonThreads());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "appconfiguration-metering-upload-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Change the limits of the uploader.
+     *
+     * @param maxInFlight maximum number of bodies sent at the same time
+     * @param maxQueuedRetries maximum number of bodies waiting for a retry
+     */
+    public synchronized void setLimits(int maxInFlight, int maxQueuedRetries) {
+        int threads = Math.max(1, maxInFlight);
+        if (threads > this.executor.getMaximumPoolSize()) {
+            this.executor.setMaximumPoolSize(threads);
+            this.executor.setCorePoolSize(threads);
+        } else {
+            this.executor.setCorePoolSize(threads);
+            this.executor.setMaximumPoolSize(threads);
+        }
+        this.maxQueuedRetries = maxQueuedRetries;
+    }
+
+    /**
+     * Write the failed bodies to a spool instead of holding them in memory. The bodies already in the spool,
+     * also those left by a previous process, are replayed.
+     *
+     * @param spool the spool, or {@code null} to hold the failed bodies in memory
+     */
+    public void setSpool(MeteringSpool spool) {
+        this.spool = spool;
+        if (spool != null && !spool.isEmpty()) {
+            this.scheduleReplay(1);
+        }
+    }
+
+    /**
+     * Queue a request body for upload.
+     *
+     * @param body the request body
+     */
+    public void upload(byte[] body) {
+        this.execute(() -> this.send(body, 0));
+    }
+
+    /**
+     * Run a task on the upload threads.
+     *
+     * @param task the task
+     */
+    public void execute(Runnable task) {
+        try {
+            this.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            this.droppedBodies.increment();
+            BaseLogger.error("Dropped the metering data, the uploads are stopped.");
+        }
+    }
+
+    /**
+     * Stop the uploads, after the queued bodies are sent. The bodies waiting for a retry are dropped when
+     * their retry is due.
+     *
+     * @param timeoutMillis maximum time to wait for the queued bodies in milliseconds
+     * @return {@code true} if the queued bodies were sent before the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean shutdown(long timeoutMillis) throws InterruptedException {
+        this.executor.shutdown();
+        return this.executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return number of request bodies dropped because too many bodies were waiting for a retry, or because
+     * the uploads were stopped
+     */
+    public long getDroppedCount() {
+        return this.droppedBodies.sum();
+    }
+
+    /**
+     * @return number of request bodies waiting for a retry
+     */
+    public int getQueuedRetryCount() {
+        return this.queuedRetries.get();
+    }
+
+    private void send(byte[] body, int attempt) {
+        if (!this.deliver(body)) {
+            MeteringSpool current = this.spool;
+            if (current != null) {
+                this.spool(current, body);
+            } else {
+                this.scheduleRetry(body, attempt + 1);
+            }
+        }
+    }
+
+    /*
+     * Send a body. Returns false if it failed with an error worth a retry.
+     */
+    private boolean deliver(byte[] body) {
+        try {
+            this.sender.send(body);
+            BaseLogger.debug("Successfully pushed the metering data.");
+        } catch (ServiceResponseException e) {
+            BaseLogger.error("Exception occurred while sending metering data to server. Status code:" + e.getStatusCode() + " message: " + e.getMessage());
+            return !(e.getStatusCode() == CoreConstants.TOO_MANY_REQUESTS || (e.getStatusCode() >= CoreConstants.SERVER_ERROR_BEGIN && e.getStatusCode() <= CoreConstants.SERVER_ERROR_END));
+        } catch (Exception e) {
+            AppConfigException.logException(this.getClass().getName(), "sendToServer", e);
+            return false;
+        }
+        return true;
+    }
+
+    private void spool(MeteringSpool current, byte[] body) {
+        if (current.append(body)) {
+            this.scheduleReplay(1);
+        } else {
+            this.droppedBodies.increment();
+            BaseLogger.error("Dropped the metering data, the metering spool is full.");
+        }
+    }
+
+    /*
+     * At most one replay is scheduled or running at a time. It sends the spooled bodies oldest first and stops at
+     * the first failure. The bodies are removed from the spool once delivered, the failed one and the ones after it
+     * stay at the head of the spool.
+     */
+    private void scheduleReplay(int attempt) {
+        if (!this.replayScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            BackgroundScheduler.getInstance().schedule(() -> this.execute(() -> this.replay(attempt)),
+                    this.retryPolicy.getDelay(attempt));
+        } catch (RejectedExecutionException e) {
+            this.replayScheduled.set(false);
+        }
+    }
+
+    private void replay(int attempt) {
+        MeteringSpool current = this.spool;
+        boolean failed = false;
+        List<byte[]> bodies;
+        while (current != null && !failed && (bodies = current.peek()) != null) {
+            int delivered = 0;
+            while (delivered < bodies.size() && this.deliver(bodies.get(delivered))) {
+                delivered++;
+            }
+            failed = delivered < bodies.size();
+            current.remove(delivered);
+        }
+        this.replayScheduled.set(false);
+        if (failed) {
+            this.scheduleReplay(attempt + 1);
+        } else if (current != null && !current.isEmpty()) {
+            this.scheduleReplay(1);
+        }
+    }
+
+    private void scheduleRetry(byte[] body, int attempt) {
+        if (this.queuedRetries.incrementAndGet() > this.maxQueuedRetries) {
+            this.queuedRetries.decrementAndGet();
+            this.droppedBodies.increment();
+            BaseLogger.error("Dropped the metering data, too many requests are waiting to be retried.");
+            return;
+        }
+        try {
+            BackgroundScheduler.getInstance().schedule(() -> {
+                this.queuedRetries.decrementAndGet();
+                this.execute(() -> this.send(body, attempt));
+            }, this.retryPolicy.getDelay(attempt));
+        } catch (RejectedExecutionException e) {
+            this.queuedRetries.decrementAndGet();
+            this.droppedBodies.increment();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Coalesces the requests of a refresh. The first request runs the refresh after a quiet window, and the
+ * requests received until then share that run. Requests received while the refresh runs mark it dirty, so that
+ * it runs once more afterwards. At most one refresh is running and one is pending.
+ * <p>
+ * The quiet window is timed by the {@link BackgroundScheduler}, the refresh itself runs on the given executor, so
+ * that a slow refresh doesn't hold the threads of the caller or of the scheduler.
+ */
+public class RefreshCoalescer {
+
+    private final Runnable refresh;
+    private final Executor executor;
+    private volatile long quietWindow;
+    private boolean scheduled = false;
+    private boolean dirty = false;
+
+    /**
+     * @param refresh the refresh
+     * @param quietWindow delay between the first request and the refresh in milliseconds
+     * @param executor runs the refresh
+     */
+    public RefreshCoalescer(Runnable refresh, long quietWindow, Executor executor) {
+        this.refresh = refresh;
+        this.executor = executor;
+        this.quietWindow = quietWindow;
+    }
+
+    /**
+     * @param quietWindow delay between the first request and the refresh in milliseconds
+     */
+    public void setQuietWindow(long quietWindow) {
+        this.quietWindow = quietWindow;
+    }
+
+    /**
+     * Request a refresh.
+     */
+    public synchronized void request() {
+        this.dirty = true;
+        if (!this.scheduled) {
+            this.schedule();
+        }
+    }
+
+    private void schedule() {
+        try {
+            BackgroundScheduler.getInstance().schedule(this::dispatch, Math.max(0, this.quietWindow));
+            this.scheduled = true;
+        } catch (RejectedExecutionException e) {
+            this.scheduled = false;
+        }
+    }
+
+    private void dispatch() {
+        try {
+            this.executor.execute(this::run);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                this.scheduled = false;
+            }
+        }
+    }
+
+    private void run() {
+        synchronized (this) {
+            this.dirty = false;
+        }
+        try {
+            this.refresh.run();
+        } finally {
+            synchronized (this) {
+                if (this.dirty) {
+                    this.schedule();
+                } else {
+                    this.scheduled = false;
+                }
+            }
+        }
+    }
+}
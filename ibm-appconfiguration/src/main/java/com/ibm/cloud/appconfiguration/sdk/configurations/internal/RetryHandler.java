@@ -16,46 +16,142 @@
 
 package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.RetryPolicy;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Retry handling in case of failures.
+ * Retry handling in case of failures. The retries are timed by the {@link BackgroundScheduler}, until the handler
+ * is cancelled. Retries that block, on the network for instance, run on the executor given to the handler, so
+ * that they don't hold the threads of the scheduler.
  */
 public class RetryHandler {
 
-    private Timer retryTimer;
+    private ScheduledFuture<?> retryTask;
     private RetryInterface retryInterface;
-    private int retryInterval = 600000;
+    private RetryPolicy retryPolicy;
+    private Executor executor;
+    private boolean cancelled = false;
 
+    /**
+     * Retry at a fixed rate on the threads of the scheduler.
+     *
+     * @param retryInterface the retry
+     * @param retryInterval interval between two retries in milliseconds. Negative for 10 minutes
+     */
     public RetryHandler(RetryInterface retryInterface, int retryInterval) {
-        if (retryInterval >= 0) {
-            this.retryInterval = retryInterval;
+        this(retryInterface, retryInterval, Runnable::run);
+    }
+
+    /**
+     * Retry at a fixed rate on the given executor. A retry is skipped while the previous one is still running.
+     *
+     * @param retryInterface the retry
+     * @param retryInterval interval between two retries in milliseconds. Negative for 10 minutes
+     * @param executor runs the retries
+     */
+    public RetryHandler(RetryInterface retryInterface, int retryInterval, Executor executor) {
+        this.retryInterface = retryInterface;
+        this.executor = executor;
+        long interval = retryInterval >= 0 ? retryInterval : 600000;
+        AtomicBoolean running = new AtomicBoolean();
+        try {
+            this.retryTask = BackgroundScheduler.getInstance().scheduleAtFixedRate(() -> {
+                if (!running.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            if (!this.isCancelled()) {
+                                retryInterface.retryMethod();
+                            }
+                        } finally {
+                            running.set(false);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    running.set(false);
+                }
+            }, interval, Math.max(1, interval));
+        } catch (RejectedExecutionException e) {
+            this.retryTask = null;
         }
+    }
+
+    /**
+     * Retry with the delays given by a retry policy, on the threads of the scheduler. Each retry is scheduled
+     * once the previous one completed.
+     *
+     * @param retryInterface the retry
+     * @param retryPolicy the delays between the retries
+     */
+    public RetryHandler(RetryInterface retryInterface, RetryPolicy retryPolicy) {
+        this(retryInterface, retryPolicy, Runnable::run);
+    }
+
+    /**
+     * Retry with the delays given by a retry policy, on the given executor. Each retry is scheduled once the
+     * previous one completed.
+     *
+     * @param retryInterface the retry
+     * @param retryPolicy the delays between the retries
+     * @param executor runs the retries
+     */
+    public RetryHandler(RetryInterface retryInterface, RetryPolicy retryPolicy, Executor executor) {
         this.retryInterface = retryInterface;
-        this.startRetryTimer();
+        this.retryPolicy = retryPolicy;
+        this.executor = executor;
+        this.scheduleRetry(1);
     }
 
-    private synchronized void startRetryTimer() {
+    private synchronized void scheduleRetry(int attempt) {
+        if (this.cancelled) {
+            return;
+        }
+        try {
+            this.retryTask = BackgroundScheduler.getInstance().schedule(() -> {
+                try {
+                    this.executor.execute(() -> this.retry(attempt));
+                } catch (RejectedExecutionException e) {
+                    // the executor is stopped, so are the retries
+                    synchronized (this) {
+                        this.retryTask = null;
+                    }
+                }
+            }, this.retryPolicy.getDelay(attempt));
+        } catch (RejectedExecutionException e) {
+            this.retryTask = null;
+        }
+    }
 
-        if (this.retryTimer != null) {
-            this.retryTimer.cancel();
-            this.retryTimer = null;
+    private void retry(int attempt) {
+        // a retry handed to the executor before the handler was cancelled doesn't run
+        if (this.isCancelled()) {
+            return;
+        }
+        try {
+            this.retryInterface.retryMethod();
+        } finally {
+            this.scheduleRetry(attempt + 1);
         }
-        TimerTask task = new TimerTask() {
-            @Override
-            public void run() {
-                retryInterface.retryMethod();
-            }
-        };
-        this.retryTimer = new Timer(true);
-        this.retryTimer.scheduleAtFixedRate(task, this.retryInterval, this.retryInterval);
-    }
-
-    public void cancel() {
-        if (this.retryTimer != null) {
-            this.retryTimer.cancel();
-            this.retryTimer = null;
+    }
+
+    private synchronized boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Stop the retries. A retry that is already running completes, but no retry starts afterwards.
+     */
+    public synchronized void cancel() {
+        this.cancelled = true;
+        if (this.retryTask != null) {
+            this.retryTask.cancel(false);
+            this.retryTask = null;
         }
     }
 }
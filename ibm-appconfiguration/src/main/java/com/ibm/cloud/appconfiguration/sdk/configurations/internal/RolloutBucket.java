@@ -0,0 +1,136 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
+
+import org.apache.commons.codec.digest.MurmurHash3;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the rollout bucket (0 - 99) of an entity for a feature from the MurmurHash of
+ * {@code entityId:featureId} encoded in UTF-8.
+ * <p>
+ * The string is encoded into a buffer owned by the thread, so computing a bucket doesn't allocate.
+ * The buckets can optionally be kept in a bounded cache.
+ */
+public class RolloutBucket {
+
+    private static final int INITIAL_BUFFER_SIZE = 128;
+    private static final ThreadLocal<byte[][]> BUFFER = ThreadLocal.withInitial(() -> new byte[][]{new byte[INITIAL_BUFFER_SIZE]});
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Integer>> cache;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param maxEntries maximum number of buckets kept in the cache. {@code 0} or less disables the cache
+     */
+    public RolloutBucket(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.cache = maxEntries > 0 ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * Get the rollout bucket of the entity for the feature.
+     *
+     * @param entityId entity id
+     * @param featureId feature id
+     * @return bucket between 0 and 99
+     */
+    public int bucket(String entityId, String featureId) {
+        if (this.cache == null || entityId == null || featureId == null) {
+            return compute(entityId, featureId);
+        }
+        ConcurrentHashMap<String, Integer> featureBuckets = this.cache.get(featureId);
+        if (featureBuckets == null) {
+            featureBuckets = this.cache.computeIfAbsent(featureId, k -> new ConcurrentHashMap<>());
+        }
+        Integer cached = featureBuckets.get(entityId);
+        if (cached != null) {
+            return cached;
+        }
+        int bucket = compute(entityId, featureId);
+        if (this.size.incrementAndGet() > this.maxEntries) {
+            // the cache is only an optimisation, start again rather than tracking the usage of every entry
+            this.cache.clear();
+            this.size.set(0);
+        } else {
+            featureBuckets.put(entityId, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * Compute the rollout bucket of the entity for the feature.
+     *
+     * @param entityId entity id
+     * @param featureId feature id
+     * @return bucket between 0 and 99
+     */
+    public static int compute(String entityId, String featureId) {
+        String entity = String.valueOf(entityId);
+        String feature = String.valueOf(featureId);
+        byte[][] holder = BUFFER.get();
+        int maxLength = (entity.length() + feature.length() + 1) * 3;
+        if (holder[0].length < maxLength) {
+            holder[0] = new byte[maxLength];
+        }
+        byte[] buffer = holder[0];
+        int length = encode(entity, buffer, 0);
+        buffer[length++] = ':';
+        length = encode(feature, buffer, length);
+
+        long hashResult = MurmurHash3.hash32x86(buffer, ConfigConstants.OFFSET, length, ConfigConstants.SEED);
+        //The decimal equivalent of 0x00000000ffffffff = 2^32 (4294967295).
+        if (hashResult < 0) {
+            hashResult = hashResult & 0x00000000ffffffffL;
+        }
+        return (int) ((hashResult / ConfigConstants.MAX_VAL) * 100);
+    }
+
+    /*
+     * Encodes the string in UTF-8, the same way as String.getBytes(StandardCharsets.UTF_8),
+     * which replaces an unpaired surrogate with '?'.
+     */
+    private static int encode(String value, byte[] buffer, int offset) {
+        int position = offset;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of usage events, for many producers and a single consumer.
+ * <p>
+ * Each slot carries a sequence number: a producer claims a position by incrementing the tail, writes the event
+ * and then publishes the slot by advancing its sequence. The consumer only reads slots that were published.
+ *
+ * @param <E> type of the event
+ */
+final class UsageRingBuffer<E> {
+
+    /**
+     * Receives the events drained from the buffer.
+     *
+     * @param <E> type of the event
+     */
+    interface Sink<E> {
+        void accept(E event, long evaluationTime, int weight);
+    }
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final Object[] events;
+    private final long[] evaluationTimes;
+    private final int[] weights;
+    private final AtomicLong tail = new AtomicLong();
+    // written by the consumer only, volatile so that producers can estimate the fill level
+    private volatile long head = 0;
+
+    /**
+     * @param requestedCapacity minimum capacity, rounded up to a power of two
+     */
+    UsageRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.sequences.set(i, i);
+        }
+        this.events = new Object[capacity];
+        this.evaluationTimes = new long[capacity];
+        this.weights = new int[capacity];
+    }
+
+    int capacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * @return approximate number of events waiting in the buffer
+     */
+    int size() {
+        return (int) Math.max(0, this.tail.get() - this.head);
+    }
+
+    /**
+     * Add an event to the buffer. Called by any thread.
+     *
+     * @return {@code false} if the buffer is full
+     */
+    boolean offer(E event, long evaluationTime, int weight) {
+        long position = this.tail.get();
+        while (true) {
+            int index = (int) position & this.mask;
+            long difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.events[index] = event;
+                    this.evaluationTimes[index] = evaluationTime;
+                    this.weights[index] = weight;
+                    this.sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Move the published events to the sink. Only called by the consumer thread.
+     *
+     * @return number of drained events
+     */
+    @SuppressWarnings("unchecked")
+    int drain(Sink<E> sink) {
+        int drained = 0;
+        while (true) {
+            long position = this.head;
+            int index = (int) position & this.mask;
+            if (this.sequences.get(index) != position + 1) {
+                return drained;
+            }
+            E event = (E) this.events[index];
+            long evaluationTime = this.evaluationTimes[index];
+            int weight = this.weights[index];
+            this.events[index] = null;
+            this.sequences.lazySet(index, position + this.mask + 1);
+            this.head = position + 1;
+            drained++;
+            sink.accept(event, evaluationTime, weight);
+        }
+    }
+}
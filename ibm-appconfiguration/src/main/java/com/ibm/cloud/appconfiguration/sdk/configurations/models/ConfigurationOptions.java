@@ -23,6 +23,42 @@ public class ConfigurationOptions {
 
     private Boolean liveConfigUpdateEnabled;
 
+    private Integer evaluationCacheSize;
+
+    private Long evaluationCacheTtl;
+
+    private Integer rolloutBucketCacheSize;
+
+    private Boolean asyncMetering;
+
+    private Integer meteringBufferSize;
+
+    private MeteringOverflowPolicy meteringOverflowPolicy;
+
+    private Integer meteringMaxRows;
+
+    private Double meteringEntitySamplingRate;
+
+    private Integer meteringMaxInFlight;
+
+    private Integer meteringMaxQueuedRetries;
+
+    private Long meteringFlushInterval;
+
+    private Integer meteringMaxBufferedRows;
+
+    private Integer meteringChunkSize;
+
+    private Long meteringShutdownFlushTimeout;
+
+    private Long meteringSpoolMaxSize;
+
+    private Integer schedulerThreadCount;
+
+    private RetryPolicy configRetryPolicy;
+
+    private Long configUpdateQuietWindow;
+
     /**
      * Get the Persistent Cache Directory.
      *
@@ -77,4 +113,346 @@ public class ConfigurationOptions {
         this.bootstrapFile = bootstrapFile;
     }
 
+    /**
+     * Get the maximum number of evaluation results cached by the SDK.
+     *
+     * @return the evaluation cache size
+     */
+    public Integer getEvaluationCacheSize() {
+        return evaluationCacheSize;
+    }
+
+    /**
+     * Set the maximum number of evaluation results cached by the SDK. The cache is disabled by default.
+     *
+     * @param evaluationCacheSize maximum number of cached results of the feature and property evaluations
+     *                            that use segment rules. {@code 0} or {@code null} disables the cache.
+     */
+    public void setEvaluationCacheSize(Integer evaluationCacheSize) {
+        this.evaluationCacheSize = evaluationCacheSize;
+    }
+
+    /**
+     * Get the time to live of a cached evaluation result.
+     *
+     * @return the time to live in milliseconds
+     */
+    public Long getEvaluationCacheTtl() {
+        return evaluationCacheTtl;
+    }
+
+    /**
+     * Set the time to live of a cached evaluation result.
+     *
+     * @param evaluationCacheTtl time to live in milliseconds. {@code null} keeps the results until the
+     *                           configurations are updated or the result is evicted.
+     */
+    public void setEvaluationCacheTtl(Long evaluationCacheTtl) {
+        this.evaluationCacheTtl = evaluationCacheTtl;
+    }
+
+    /**
+     * Get the maximum number of rollout buckets cached by the SDK.
+     *
+     * @return the maximum number of cached rollout buckets
+     */
+    public Integer getRolloutBucketCacheSize() {
+        return rolloutBucketCacheSize;
+    }
+
+    /**
+     * Set the maximum number of rollout buckets cached by the SDK. The cache is disabled by default.
+     *
+     * @param rolloutBucketCacheSize maximum number of cached rollout buckets of an entity id and feature id.
+     *                               {@code 0} or {@code null} disables the cache.
+     */
+    public void setRolloutBucketCacheSize(Integer rolloutBucketCacheSize) {
+        this.rolloutBucketCacheSize = rolloutBucketCacheSize;
+    }
+
+    /**
+     * Get whether the evaluations are recorded for metering asynchronously.
+     *
+     * @return {@code true} if the asynchronous metering is enabled
+     */
+    public Boolean getAsyncMetering() {
+        return asyncMetering;
+    }
+
+    /**
+     * Record the evaluations for metering on a background thread instead of the evaluating thread.
+     * Disabled by default.
+     *
+     * @param asyncMetering {@code true} to enable the asynchronous metering
+     */
+    public void setAsyncMetering(Boolean asyncMetering) {
+        this.asyncMetering = asyncMetering;
+    }
+
+    /**
+     * Get the size of the asynchronous metering buffer.
+     *
+     * @return the maximum number of evaluations waiting to be recorded
+     */
+    public Integer getMeteringBufferSize() {
+        return meteringBufferSize;
+    }
+
+    /**
+     * Set the size of the asynchronous metering buffer. Defaults to 8192 evaluations.
+     *
+     * @param meteringBufferSize maximum number of evaluations waiting to be recorded
+     */
+    public void setMeteringBufferSize(Integer meteringBufferSize) {
+        this.meteringBufferSize = meteringBufferSize;
+    }
+
+    /**
+     * Get what the asynchronous metering does while its buffer is full.
+     *
+     * @return the overflow policy
+     */
+    public MeteringOverflowPolicy getMeteringOverflowPolicy() {
+        return meteringOverflowPolicy;
+    }
+
+    /**
+     * Set what the asynchronous metering does while its buffer is full. Defaults to
+     * {@link MeteringOverflowPolicy#DROP}.
+     *
+     * @param meteringOverflowPolicy the overflow policy
+     */
+    public void setMeteringOverflowPolicy(MeteringOverflowPolicy meteringOverflowPolicy) {
+        this.meteringOverflowPolicy = meteringOverflowPolicy;
+    }
+
+    /**
+     * Get the maximum number of metering rows with an entity id.
+     *
+     * @return the maximum number of rows
+     */
+    public Integer getMeteringMaxRows() {
+        return meteringMaxRows;
+    }
+
+    /**
+     * Set the maximum number of metering rows with an entity id kept between two sends. Defaults to 100000.
+     * Beyond it, the evaluations of the entities that are not evaluated often are metered without entity id.
+     *
+     * @param meteringMaxRows maximum number of rows. {@code 0} for no limit.
+     */
+    public void setMeteringMaxRows(Integer meteringMaxRows) {
+        this.meteringMaxRows = meteringMaxRows;
+    }
+
+    /**
+     * Get the fraction of the entities metered with their entity id.
+     *
+     * @return the sampling rate
+     */
+    public Double getMeteringEntitySamplingRate() {
+        return meteringEntitySamplingRate;
+    }
+
+    /**
+     * Set the fraction of the entities metered with their entity id. Defaults to 1, every entity.
+     * The evaluations of the other entities are metered without entity id.
+     *
+     * @param meteringEntitySamplingRate sampling rate between 0 and 1
+     */
+    public void setMeteringEntitySamplingRate(Double meteringEntitySamplingRate) {
+        this.meteringEntitySamplingRate = meteringEntitySamplingRate;
+    }
+
+    /**
+     * Get the maximum number of metering requests sent at the same time.
+     *
+     * @return the maximum number of concurrent metering requests
+     */
+    public Integer getMeteringMaxInFlight() {
+        return meteringMaxInFlight;
+    }
+
+    /**
+     * Set the maximum number of metering requests sent at the same time. Defaults to 4.
+     *
+     * @param meteringMaxInFlight the maximum number of concurrent metering requests
+     */
+    public void setMeteringMaxInFlight(Integer meteringMaxInFlight) {
+        this.meteringMaxInFlight = meteringMaxInFlight;
+    }
+
+    /**
+     * Get the maximum number of failed metering requests waiting to be retried.
+     *
+     * @return the maximum number of queued retries
+     */
+    public Integer getMeteringMaxQueuedRetries() {
+        return meteringMaxQueuedRetries;
+    }
+
+    /**
+     * Set the maximum number of failed metering requests waiting to be retried. Defaults to 100.
+     * The requests that fail beyond it are dropped.
+     *
+     * @param meteringMaxQueuedRetries the maximum number of queued retries
+     */
+    public void setMeteringMaxQueuedRetries(Integer meteringMaxQueuedRetries) {
+        this.meteringMaxQueuedRetries = meteringMaxQueuedRetries;
+    }
+
+    /**
+     * Get the maximum time between two metering sends.
+     *
+     * @return the interval in milliseconds
+     */
+    public Long getMeteringFlushInterval() {
+        return meteringFlushInterval;
+    }
+
+    /**
+     * Set the maximum time between two metering sends. Defaults to 10 minutes.
+     *
+     * @param meteringFlushInterval the interval in milliseconds
+     */
+    public void setMeteringFlushInterval(Long meteringFlushInterval) {
+        this.meteringFlushInterval = meteringFlushInterval;
+    }
+
+    /**
+     * Get the number of metering rows that triggers a send before the interval ends.
+     *
+     * @return the number of rows
+     */
+    public Integer getMeteringMaxBufferedRows() {
+        return meteringMaxBufferedRows;
+    }
+
+    /**
+     * Set the number of metering rows that triggers a send before the interval ends.
+     * By default the evaluations are only sent at the interval.
+     *
+     * @param meteringMaxBufferedRows the number of rows
+     */
+    public void setMeteringMaxBufferedRows(Integer meteringMaxBufferedRows) {
+        this.meteringMaxBufferedRows = meteringMaxBufferedRows;
+    }
+
+    /**
+     * Get the maximum number of usages per metering request.
+     *
+     * @return the number of usages
+     */
+    public Integer getMeteringChunkSize() {
+        return meteringChunkSize;
+    }
+
+    /**
+     * Set the maximum number of usages per metering request. By default up to 25 usages of a collection
+     * are sent in one request, and more usages in requests of 10.
+     *
+     * @param meteringChunkSize the number of usages
+     */
+    public void setMeteringChunkSize(Integer meteringChunkSize) {
+        this.meteringChunkSize = meteringChunkSize;
+    }
+
+    /**
+     * Get the maximum time the JVM shutdown waits for the evaluations to be sent.
+     *
+     * @return the timeout in milliseconds
+     */
+    public Long getMeteringShutdownFlushTimeout() {
+        return meteringShutdownFlushTimeout;
+    }
+
+    /**
+     * Send the recorded evaluations when the JVM shuts down, waiting at most the given time.
+     * By default the evaluations recorded since the last send are lost on shutdown.
+     *
+     * @param meteringShutdownFlushTimeout the timeout in milliseconds
+     */
+    public void setMeteringShutdownFlushTimeout(Long meteringShutdownFlushTimeout) {
+        this.meteringShutdownFlushTimeout = meteringShutdownFlushTimeout;
+    }
+
+    /**
+     * Get the maximum size of the metering spool.
+     *
+     * @return the size in bytes
+     */
+    public Long getMeteringSpoolMaxSize() {
+        return meteringSpoolMaxSize;
+    }
+
+    /**
+     * Write the metering data that could not be sent to the server to a spool directory next to the persistent
+     * cache, and send it from there once the server is reachable again. The spool also survives a restart.
+     * Only used when the persistent cache directory is set. By default the failed metering data is held in memory.
+     *
+     * @param meteringSpoolMaxSize the maximum size of the spool in bytes
+     */
+    public void setMeteringSpoolMaxSize(Long meteringSpoolMaxSize) {
+        this.meteringSpoolMaxSize = meteringSpoolMaxSize;
+    }
+
+    /**
+     * Get the number of threads running the background work of the SDK.
+     *
+     * @return the number of threads
+     */
+    public Integer getSchedulerThreadCount() {
+        return schedulerThreadCount;
+    }
+
+    /**
+     * Set the number of threads timing the background work of the SDK: the retries of the configuration
+     * fetch and of the socket connection, the connectivity check and the metering sends. The work itself,
+     * which waits for the network, runs on other threads. Defaults to 2.
+     *
+     * @param schedulerThreadCount the number of threads
+     */
+    public void setSchedulerThreadCount(Integer schedulerThreadCount) {
+        this.schedulerThreadCount = schedulerThreadCount;
+    }
+
+    /**
+     * Get the retry policy of the configuration fetch.
+     *
+     * @return the retry policy
+     */
+    public RetryPolicy getConfigRetryPolicy() {
+        return configRetryPolicy;
+    }
+
+    /**
+     * Set when a configuration fetch that failed with a server error, a rate limit or a connection error is
+     * retried. Defaults to {@link RetryPolicy#exponentialBackoff(long, long)} from 15 seconds to 10 minutes.
+     *
+     * @param configRetryPolicy the retry policy
+     */
+    public void setConfigRetryPolicy(RetryPolicy configRetryPolicy) {
+        this.configRetryPolicy = configRetryPolicy;
+    }
+
+    /**
+     * Get the quiet window of the configuration updates.
+     *
+     * @return the quiet window in milliseconds
+     */
+    public Long getConfigUpdateQuietWindow() {
+        return configUpdateQuietWindow;
+    }
+
+    /**
+     * Set how long the SDK waits after a configuration change notification before it applies the change.
+     * The notifications received meanwhile are applied together, with at most one fetch of the configurations
+     * and one call of the configuration update listener. Defaults to 500 milliseconds.
+     *
+     * @param configUpdateQuietWindow the quiet window in milliseconds
+     */
+    public void setConfigUpdateQuietWindow(Long configUpdateQuietWindow) {
+        this.configUpdateQuietWindow = configUpdateQuietWindow;
+    }
+
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.models;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+
+/**
+ * Read-only view of the attributes of an entity used for the segment rule evaluation.
+ * <p>
+ * Use {@link #of(Map)} to evaluate features and properties without building a {@link JSONObject}.
+ * The view is not copied, so a caller can keep one map and its view per thread and refill the map
+ * for every request.
+ */
+public interface EntityAttributes {
+
+    /**
+     * Get the value of an attribute.
+     *
+     * @param name attribute name
+     * @return the attribute value or {@code null} if the entity doesn't have the attribute
+     */
+    Object getAttribute(String name);
+
+    /**
+     * @return {@code true} if the entity doesn't have any attributes
+     */
+    boolean isEmpty();
+
+    /**
+     * Returns a view over the given map.
+     *
+     * @param attributes map of attribute name and value
+     * @return entity attributes backed by the map, or {@code null} if the map is {@code null}
+     */
+    static EntityAttributes of(Map<String, ?> attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        return new EntityAttributes() {
+            @Override
+            public Object getAttribute(String name) {
+                return attributes.get(name);
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return attributes.isEmpty();
+            }
+        };
+    }
+
+    /**
+     * Returns a view over the given JSON object.
+     *
+     * @param attributes JSON object of attribute name and value
+     * @return entity attributes backed by the JSON object, or {@code null} if the JSON object is {@code null}
+     */
+    static EntityAttributes of(JSONObject attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        return new EntityAttributes() {
+            @Override
+            public Object getAttribute(String name) {
+                return attributes.opt(name);
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return attributes.isEmpty();
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.models;
+
+import java.util.HashMap;
+
+/**
+ * Results of the evaluation of all the features and properties for one entity.
+ */
+public class EntityEvaluation {
+
+    private final String entityId;
+    private final HashMap<String, EvaluationResult> features;
+    private final HashMap<String, EvaluationResult> properties;
+
+    /**
+     * @param entityId id of the evaluated entity
+     * @param features results of the features by feature id
+     * @param properties results of the properties by property id
+     */
+    public EntityEvaluation(String entityId, HashMap<String, EvaluationResult> features,
+                            HashMap<String, EvaluationResult> properties) {
+        this.entityId = entityId;
+        this.features = features;
+        this.properties = properties;
+    }
+
+    /**
+     * @return id of the evaluated entity
+     */
+    public String getEntityId() {
+        return entityId;
+    }
+
+    /**
+     * Returns the results of all the features.
+     *
+     * @return hashmap of feature ids and their evaluation results
+     */
+    public HashMap<String, EvaluationResult> getFeatures() {
+        return features;
+    }
+
+    /**
+     * Returns the results of all the properties.
+     *
+     * @return hashmap of property ids and their evaluation results
+     */
+    public HashMap<String, EvaluationResult> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns the result of a feature.
+     *
+     * @param featureId the Feature Id
+     * @return the evaluation result, or {@code null} if the feature doesn't exist
+     */
+    public EvaluationResult getFeature(String featureId) {
+        return features.get(featureId);
+    }
+
+    /**
+     * Returns the result of a property.
+     *
+     * @param propertyId the Property Id
+     * @return the evaluation result, or {@code null} if the property doesn't exist
+     */
+    public EvaluationResult getProperty(String propertyId) {
+        return properties.get(propertyId);
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.models;
+
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigConstants;
+
+/**
+ * Holder for the result of a feature or property evaluation.
+ * <p>
+ * An instance can be reused across evaluations, so that reading the evaluated value and segment doesn't
+ * allocate any objects. It is not thread safe.
+ */
+public class EvaluationResult {
+
+    private static final ThreadLocal<EvaluationResult> THREAD_RESULT = ThreadLocal.withInitial(EvaluationResult::new);
+
+    private Object value;
+    private boolean enabled;
+    private String evaluatedSegmentId = ConfigConstants.DEFAULT_SEGMENT_ID;
+
+    /**
+     * @return result holder owned by the current thread
+     */
+    static EvaluationResult forCurrentThread() {
+        return THREAD_RESULT.get();
+    }
+
+    /**
+     * Clear the result, so that the holder can be used for another evaluation.
+     */
+    public void reset() {
+        this.value = null;
+        this.enabled = false;
+        this.evaluatedSegmentId = ConfigConstants.DEFAULT_SEGMENT_ID;
+    }
+
+    /**
+     * Get the evaluated value.
+     *
+     * @return {boolean|string|number|null} the evaluated value
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Set the evaluated value.
+     *
+     * @param value the evaluated value
+     */
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    /**
+     * Get the evaluated state of the feature. Always {@code false} for a property.
+     *
+     * @return {@code true} if the feature is enabled for the entity
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the evaluated state of the feature.
+     *
+     * @param enabled {@code true} if the feature is enabled for the entity
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the id of the segment that matched the entity.
+     *
+     * @return the segment id, or {@code $$null$$} if no segment matched
+     */
+    public String getEvaluatedSegmentId() {
+        return evaluatedSegmentId;
+    }
+
+    /**
+     * Set the id of the segment that matched the entity.
+     *
+     * @param evaluatedSegmentId the segment id
+     */
+    public void setEvaluatedSegmentId(String evaluatedSegmentId) {
+        this.evaluatedSegmentId = evaluatedSegmentId;
+    }
+
+    /**
+     * @return {@code true} if a segment matched the entity
+     */
+    public boolean hasEvaluatedSegment() {
+        return !ConfigConstants.DEFAULT_SEGMENT_ID.equals(evaluatedSegmentId);
+    }
+
+    /**
+     * Get the evaluated value as a boolean.
+     *
+     * @return the value, or {@code false} if the value is not a boolean
+     */
+    public boolean getBooleanValue() {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value instanceof String && Boolean.parseBoolean((String) value);
+    }
+
+    /**
+     * Get the evaluated value as a long.
+     *
+     * @return the value, or {@code 0} if the value is not a number
+     */
+    public long getLongValue() {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                return (long) getDoubleValue();
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Get the evaluated value as a double.
+     *
+     * @return the value, or {@code 0} if the value is not a number
+     */
+    public double getDoubleValue() {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the evaluated value as a string.
+     *
+     * @return the value, or {@code null} if there is no value. JSON values are returned in their string form
+     */
+    public String getStringValue() {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        return value.toString();
+    }
+}
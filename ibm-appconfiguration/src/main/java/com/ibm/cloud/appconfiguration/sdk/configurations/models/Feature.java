@@ -19,12 +19,12 @@ package com.ibm.cloud.appconfiguration.sdk.configurations.models;
 import com.ibm.cloud.appconfiguration.sdk.configurations.ConfigurationHandler;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigConstants;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.Validators;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.internal.SegmentRules;
 import com.ibm.cloud.appconfiguration.sdk.core.AppConfigException;
 import com.ibm.cloud.appconfiguration.sdk.core.BaseLogger;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.util.HashMap;
 
 
 /**
@@ -36,6 +36,7 @@ public class Feature {
     private String name;
     private String featureId;
     private JSONArray segmentRules;
+    private SegmentRules[] compiledSegmentRules = new SegmentRules[0];
     private ConfigurationType type;
     private String format;
     private Object disabledValue;
@@ -52,6 +53,7 @@ public class Feature {
             this.name = featureData.getString(ConfigConstants.NAME);
             this.featureId = featureData.getString(ConfigConstants.FEATURE_ID);
             this.segmentRules = featureData.getJSONArray(ConfigConstants.SEGMENT_RULES);
+            this.compiledSegmentRules = SegmentRules.compile(this.segmentRules);
             this.type = ConfigurationType.valueOf(featureData.getString(ConfigConstants.TYPE));
             this.format = featureData.optString(ConfigConstants.FORMAT, null);
             this.disabledValue = featureData.get(ConfigConstants.DISABLED_VALUE);
@@ -141,6 +143,15 @@ public class Feature {
         return segmentRules;
     }
 
+    /**
+     * Get the rules of the Segment targeted, compiled and sorted in the order of evaluation.
+     *
+     * @return compiled segment rules
+     */
+    public SegmentRules[] getCompiledSegmentRules() {
+        return compiledSegmentRules;
+    }
+
     /**
      * Get the Feature rolloutPercentage.
      *
@@ -150,6 +161,17 @@ public class Feature {
         return rolloutPercentage;
     }
 
+    /**
+     * Check that the feature was built from valid data.
+     *
+     * @return {@code true} if the id, the segment rules, the type, the values and the rollout percentage of the
+     * feature were all read. As when the configurations are loaded, the segment rules that can't be read are left out
+     */
+    public boolean isValid() {
+        return this.featureId != null && this.type != null && this.enabledValue != null
+                && this.disabledValue != null && this.rolloutPercentage != null;
+    }
+
     /**
      * Get the evaluated value of the feature.
      *
@@ -165,15 +187,21 @@ public class Feature {
      * @return {boolean|string|number|null} Returns one of the Enabled/Disabled/Overridden value based on the evaluation.
      */
     public Object getCurrentValue(String entityId, JSONObject entityAttributes) {
+        return getCurrentValueFor(entityId, EntityAttributes.of(entityAttributes));
+    }
 
-        if (!Validators.validateString(entityId)) {
-            BaseLogger.error("A valid entity id should be passed for this method.");
-            return null;
-        }
-        ConfigurationHandler configurationHandler = ConfigurationHandler.getInstance();
-        HashMap<String, Object> map = configurationHandler.featureEvaluation(this, entityId, entityAttributes);
-        Object res = map.get(ConfigConstants.CURRENT_VALUE);
-        return res;
+    /**
+     * Get the evaluated value of the feature.
+     * <p>
+     * Same as {@link #getCurrentValue(String, JSONObject)}, but reads the attributes through {@link EntityAttributes}
+     * so that the caller doesn't need to build a JSON object for every evaluation.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity, for example {@code EntityAttributes.of(map)}.
+     * @return {boolean|string|number|null} Returns one of the Enabled/Disabled/Overridden value based on the evaluation.
+     */
+    public Object getCurrentValueFor(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).getValue();
     }
 
     /**
@@ -189,4 +217,83 @@ public class Feature {
     public Object getCurrentValue(String entityId) {
         return getCurrentValue(entityId, null);
     }
+
+    /**
+     * Evaluate the feature into a reusable result holder.
+     * <p>
+     * The holder receives the evaluated value, the state of the feature and the id of the segment that matched the entity.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @param result           holder that receives the result of the evaluation
+     */
+    public void evaluate(String entityId, EntityAttributes entityAttributes, EvaluationResult result) {
+        if (!Validators.validateString(entityId)) {
+            BaseLogger.error("A valid entity id should be passed for this method.");
+            result.reset();
+            return;
+        }
+        ConfigurationHandler.getInstance().evaluateFeature(this, entityId, entityAttributes, result);
+    }
+
+    /**
+     * Get the evaluated state of the feature flag for the entity.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @return {@code true} if the enabled or overridden value is served to the entity, {@code false} otherwise
+     */
+    public boolean isEnabledFor(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).isEnabled();
+    }
+
+    /**
+     * Get the evaluated value of the feature as a boolean.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @return the evaluated value, or {@code false} if the value is not a boolean
+     */
+    public boolean getBooleanValue(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).getBooleanValue();
+    }
+
+    /**
+     * Get the evaluated value of the feature as a long.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @return the evaluated value, or {@code 0} if the value is not a number
+     */
+    public long getLongValue(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).getLongValue();
+    }
+
+    /**
+     * Get the evaluated value of the feature as a double.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @return the evaluated value, or {@code 0} if the value is not a number
+     */
+    public double getDoubleValue(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).getDoubleValue();
+    }
+
+    /**
+     * Get the evaluated value of the feature as a string.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @return the evaluated value, or {@code null} if the entity id is not valid
+     */
+    public String getStringValue(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).getStringValue();
+    }
+
+    private EvaluationResult evaluateForCurrentThread(String entityId, EntityAttributes entityAttributes) {
+        EvaluationResult result = EvaluationResult.forCurrentThread();
+        evaluate(entityId, entityAttributes, result);
+        return result;
+    }
 }
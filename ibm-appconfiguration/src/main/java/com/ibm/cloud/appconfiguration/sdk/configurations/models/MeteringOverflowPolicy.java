@@ -0,0 +1,32 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.models;
+
+/**
+ * What the asynchronous metering does with the evaluations recorded while its buffer is full.
+ */
+public enum MeteringOverflowPolicy {
+    /**
+     * Drop the evaluations that don't fit in the buffer and count them.
+     */
+    DROP,
+    /**
+     * Once the buffer is half full, record only a sample of the evaluations, each one weighted by the
+     * sampling rate. Evaluations that still don't fit are dropped and counted.
+     */
+    SAMPLE;
+}
@@ -19,6 +19,7 @@ package com.ibm.cloud.appconfiguration.sdk.configurations.models;
 import com.ibm.cloud.appconfiguration.sdk.configurations.ConfigurationHandler;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigConstants;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.Validators;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.internal.SegmentRules;
 import com.ibm.cloud.appconfiguration.sdk.core.AppConfigException;
 import com.ibm.cloud.appconfiguration.sdk.core.BaseLogger;
 import org.json.JSONArray;
@@ -32,6 +33,7 @@ public class Property {
     private String name;
     private String propertyId;
     private JSONArray segmentRules;
+    private SegmentRules[] compiledSegmentRules = new SegmentRules[0];
     private ConfigurationType type;
     private String format;
     private Object value;
@@ -45,6 +47,7 @@ public class Property {
             this.name = propertyData.getString(ConfigConstants.NAME);
             this.propertyId = propertyData.getString(ConfigConstants.PROPERTY_ID);
             this.segmentRules = propertyData.getJSONArray(ConfigConstants.SEGMENT_RULES);
+            this.compiledSegmentRules = SegmentRules.compile(this.segmentRules);
             this.type = ConfigurationType.valueOf(propertyData.getString(ConfigConstants.TYPE));
             this.format = propertyData.optString(ConfigConstants.FORMAT, null);
             this.value = propertyData.get(ConfigConstants.VALUE);
@@ -112,6 +115,25 @@ public class Property {
         return segmentRules;
     }
 
+    /**
+     * Get the rules of the Segment targeted, compiled and sorted in the order of evaluation.
+     *
+     * @return compiled segment rules
+     */
+    public SegmentRules[] getCompiledSegmentRules() {
+        return compiledSegmentRules;
+    }
+
+    /**
+     * Check that the property was built from valid data.
+     *
+     * @return {@code true} if the id, the segment rules, the type and the value of the property were all read.
+     * As when the configurations are loaded, the segment rules that can't be read are left out
+     */
+    public boolean isValid() {
+        return this.propertyId != null && this.type != null && this.value != null;
+    }
+
     /**
      * Get the evaluated value of the property.
      *
@@ -127,14 +149,21 @@ public class Property {
      * @return {boolean|string|number|null} Returns the default property value or its overridden value based on the evaluation.
      */
     public Object getCurrentValue(String entityId, JSONObject entityAttributes) {
+        return getCurrentValueFor(entityId, EntityAttributes.of(entityAttributes));
+    }
 
-        if (!Validators.validateString(entityId)) {
-            BaseLogger.error("A valid id should be passed for this method.");
-            return null;
-        }
-
-        ConfigurationHandler configurationHandler = ConfigurationHandler.getInstance();
-        return configurationHandler.propertyEvaluation(this, entityId, entityAttributes);
+    /**
+     * Get the evaluated value of the property.
+     * <p>
+     * Same as {@link #getCurrentValue(String, JSONObject)}, but reads the attributes through {@link EntityAttributes}
+     * so that the caller doesn't need to build a JSON object for every evaluation.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity, for example {@code EntityAttributes.of(map)}.
+     * @return {boolean|string|number|null} Returns the default property value or its overridden value based on the evaluation.
+     */
+    public Object getCurrentValueFor(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).getValue();
     }
 
     /**
@@ -147,4 +176,71 @@ public class Property {
         return getCurrentValue(entityId, null);
     }
 
+    /**
+     * Evaluate the property into a reusable result holder.
+     * <p>
+     * The holder receives the evaluated value and the id of the segment that matched the entity.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @param result           holder that receives the result of the evaluation
+     */
+    public void evaluate(String entityId, EntityAttributes entityAttributes, EvaluationResult result) {
+        if (!Validators.validateString(entityId)) {
+            BaseLogger.error("A valid id should be passed for this method.");
+            result.reset();
+            return;
+        }
+        ConfigurationHandler.getInstance().evaluateProperty(this, entityId, entityAttributes, result);
+    }
+
+    /**
+     * Get the evaluated value of the property as a boolean.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @return the evaluated value, or {@code false} if the value is not a boolean
+     */
+    public boolean getBooleanValue(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).getBooleanValue();
+    }
+
+    /**
+     * Get the evaluated value of the property as a long.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @return the evaluated value, or {@code 0} if the value is not a number
+     */
+    public long getLongValue(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).getLongValue();
+    }
+
+    /**
+     * Get the evaluated value of the property as a double.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @return the evaluated value, or {@code 0} if the value is not a number
+     */
+    public double getDoubleValue(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).getDoubleValue();
+    }
+
+    /**
+     * Get the evaluated value of the property as a string.
+     *
+     * @param entityId         Id of the Entity.
+     * @param entityAttributes attributes that define the specified entity. Can be {@code null}.
+     * @return the evaluated value, or {@code null} if the entity id is not valid
+     */
+    public String getStringValue(String entityId, EntityAttributes entityAttributes) {
+        return evaluateForCurrentThread(entityId, entityAttributes).getStringValue();
+    }
+
+    private EvaluationResult evaluateForCurrentThread(String entityId, EntityAttributes entityAttributes) {
+        EvaluationResult result = EvaluationResult.forCurrentThread();
+        evaluate(entityId, entityAttributes, result);
+        return result;
+    }
 }
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.models;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides how long the SDK waits before retrying a failed request.
+ */
+public interface RetryPolicy {
+
+    /**
+     * @param attempt number of the retry, starting at 1
+     * @return delay before the retry in milliseconds
+     */
+    long getDelay(int attempt);
+
+    /**
+     * Retry at a fixed interval.
+     *
+     * @param interval delay between two retries in milliseconds
+     * @return the retry policy
+     */
+    static RetryPolicy fixed(long interval) {
+        return attempt -> interval;
+    }
+
+    /**
+     * Exponential backoff with full jitter: the delay of a retry is random, between the minimum delay and
+     * the minimum delay times 2^attempt, capped at the maximum delay. Clients that failed together don't
+     * retry together.
+     *
+     * @param minDelay minimum delay of a retry in milliseconds
+     * @param maxDelay maximum delay of a retry in milliseconds
+     * @return the retry policy
+     */
+    static RetryPolicy exponentialBackoff(long minDelay, long maxDelay) {
+        long floor = Math.max(1, minDelay);
+        long cap = Math.max(floor, maxDelay);
+        return attempt -> {
+            // the shift is bounded so that the ceiling doesn't overflow
+            int shift = Math.min(Math.max(attempt, 1), Long.numberOfLeadingZeros(floor) - 1);
+            long ceiling = Math.min(cap, floor << shift);
+            return floor + ThreadLocalRandom.current().nextLong(ceiling - floor + 1);
+        };
+    }
+}
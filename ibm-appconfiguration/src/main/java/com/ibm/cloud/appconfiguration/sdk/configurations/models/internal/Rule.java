@@ -16,18 +16,29 @@
 
 package com.ibm.cloud.appconfiguration.sdk.configurations.models.internal;
 
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EntityAttributes;
 import com.ibm.cloud.appconfiguration.sdk.core.AppConfigException;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * Defines the model of a rule defined for a segment in App Configuration service.
  */
 public class Rule {
 
+    private static final int MIN_VALUES_FOR_MATCHER = 8;
     public String attributeName;
     public String operator;
     public JSONArray values;
+    private Operator resolvedOperator;
+    private String[] stringValues = new String[0];
+    private double[] numericValues = new double[0];
+    private Set<String> valueSet;
+    private StringMatcher matcher;
     private final String className = this.getClass().getName();
 
     /**
@@ -39,6 +50,24 @@ public class Rule {
             this.attributeName = ruleJson.getString("attribute_name");
             this.operator = ruleJson.getString("operator");
             this.values = ruleJson.getJSONArray("values");
+            this.resolvedOperator = Operator.fromName(this.operator);
+            if (this.resolvedOperator != null && this.resolvedOperator.isNumeric()) {
+                this.numericValues = new double[this.values.length()];
+                for (int i = 0; i < this.values.length(); i++) {
+                    this.numericValues[i] = this.numberConversion(this.values.get(i));
+                }
+            } else {
+                this.stringValues = new String[this.values.length()];
+                for (int i = 0; i < this.values.length(); i++) {
+                    this.stringValues[i] = String.valueOf(this.values.get(i));
+                }
+                if (this.resolvedOperator == Operator.IS) {
+                    // "is" compares the string form of the attribute, so a set lookup gives the same result as a scan
+                    this.valueSet = new HashSet<>(Arrays.asList(this.stringValues));
+                } else if (this.resolvedOperator != null && this.stringValues.length >= MIN_VALUES_FOR_MATCHER) {
+                    this.matcher = this.resolvedOperator.buildMatcher(this.stringValues);
+                }
+            }
         } catch (Exception e) {
             AppConfigException.logException(this.className, "Constructor", e, new Object[]{"Invalid action in Rule class."});
 
@@ -53,129 +82,174 @@ public class Rule {
      * @return {@code true} if evaluation is passed. {@code false} otherwise
      */
     public Boolean evaluateRule(JSONObject entityAttributes) {
+        return this.evaluateRule(EntityAttributes.of(entityAttributes));
+    }
 
-        Boolean result = false;
-        Object key;
-        String methodName = "evaluateRule";
+    /**
+     * Evaluates the the Rule. Returns {@code true} if evaluation is passed against respective operator.
+     * Else return {@code false}
+     *
+     * @param entityAttributes entity attributes
+     * @return {@code true} if evaluation is passed. {@code false} otherwise
+     */
+    public boolean evaluateRule(EntityAttributes entityAttributes) {
 
-        if (entityAttributes.has(this.attributeName)) {
-            try {
-                key = entityAttributes.get(this.attributeName);
-            } catch (Exception e) {
-                AppConfigException.logException(this.className, methodName, e);
-                return result;
-            }
-        } else {
-            return result;
+        if (this.attributeName == null) {
+            return false;
+        }
+        Object key = entityAttributes.getAttribute(this.attributeName);
+        if (key == null) {
+            return false;
+        }
+        if (this.values == null) {
+            // a rule without values used to fail with an exception that the segment skipped, it still passes
+            return true;
+        }
+        if (this.resolvedOperator == null) {
+            return false;
         }
 
-        for (int i = 0; i < this.values.length(); i++) {
-            try {
-                Object value = this.values.get(i);
-                if (operatorCheck(key, value)) {
-                    result = true;
+        if (this.resolvedOperator.isNumeric()) {
+            double keyValue = this.numberConversion(key);
+            if (Double.isNaN(keyValue)) {
+                return false;
+            }
+            for (double value : this.numericValues) {
+                if (this.resolvedOperator.compare(keyValue, value)) {
+                    return true;
+                }
+            }
+        } else if (this.valueSet != null) {
+            return this.valueSet.contains(key.toString());
+        } else if (this.matcher != null) {
+            return this.matcher.matches(key.toString());
+        } else {
+            String keyValue = key.toString();
+            for (String value : this.stringValues) {
+                if (this.resolvedOperator.matches(keyValue, value)) {
+                    return true;
                 }
-
-            } catch (Exception e) {
-                AppConfigException.logException(this.className, methodName, e);
-                return result;
             }
         }
-        return result;
+        return false;
     }
 
-    private Boolean operatorCheck(Object keyData, Object valueData) {
-        Object key = keyData;
-        Object value = valueData;
-        Conversions keyVal;
-        Conversions valueVal;
+    /*
+     * Converts the given value to a double. Returns NaN if the value is not a number,
+     * so that every comparison against it fails.
+     */
+    private double numberConversion(Object value) {
+        try {
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            } else if (value instanceof String) {
+                return Double.parseDouble(value.toString());
+            }
+        } catch (Exception e) {
+            AppConfigException.logException(this.className, "numberConversion", e);
+        }
+        return Double.NaN;
+    }
 
-        Boolean result = false;
+    /**
+     * Operators supported in a segment rule, resolved once when the rule is loaded.
+     */
+    private enum Operator {
+        ENDS_WITH("endsWith", false) {
+            @Override
+            boolean matches(String key, String value) {
+                return key.endsWith(value);
+            }
 
-        if (key == null || value == null) {
-            return result;
-        }
+            @Override
+            StringMatcher buildMatcher(String[] values) {
+                return StringMatcher.endsWith(values);
+            }
+        },
+        STARTS_WITH("startsWith", false) {
+            @Override
+            boolean matches(String key, String value) {
+                return key.startsWith(value);
+            }
 
-        switch (this.operator) {
-            case "endsWith":
-                result = key.toString().endsWith(value.toString());
-                break;
-            case "startsWith":
-                result = key.toString().startsWith(value.toString());
-                break;
-            case "contains":
-                result = key.toString().contains(value.toString());
-                break;
-            case "is":
-                if (key.getClass().equals(value.getClass())) {
-                    result = key.equals(value);
-                } else {
-                    try {
-                        result = value.toString().equals(key.toString());
-                    } catch (Exception e) {
-                        AppConfigException.logException(this.className, "is", e);
-                    }
-                }
-                break;
-            case "greaterThan":
-                keyVal = this.numberConversion(key);
-                valueVal = this.numberConversion(value);
+            @Override
+            StringMatcher buildMatcher(String[] values) {
+                return StringMatcher.startsWith(values);
+            }
+        },
+        CONTAINS("contains", false) {
+            @Override
+            boolean matches(String key, String value) {
+                return key.contains(value);
+            }
 
-                if (keyVal.isNumber && valueVal.isNumber) {
-                    result = keyVal.value > valueVal.value;
-                }
-                break;
-            case "lesserThan":
-                keyVal = this.numberConversion(key);
-                valueVal = this.numberConversion(value);
+            @Override
+            StringMatcher buildMatcher(String[] values) {
+                return StringMatcher.contains(values);
+            }
+        },
+        IS("is", false) {
+            @Override
+            boolean matches(String key, String value) {
+                return key.equals(value);
+            }
+        },
+        GREATER_THAN("greaterThan", true) {
+            @Override
+            boolean compare(double key, double value) {
+                return key > value;
+            }
+        },
+        LESSER_THAN("lesserThan", true) {
+            @Override
+            boolean compare(double key, double value) {
+                return key < value;
+            }
+        },
+        GREATER_THAN_EQUALS("greaterThanEquals", true) {
+            @Override
+            boolean compare(double key, double value) {
+                return key >= value;
+            }
+        },
+        LESSER_THAN_EQUALS("lesserThanEquals", true) {
+            @Override
+            boolean compare(double key, double value) {
+                return key <= value;
+            }
+        };
 
-                if (keyVal.isNumber && valueVal.isNumber) {
-                    result = keyVal.value < valueVal.value;
-                }
-                break;
-            case "greaterThanEquals":
-                keyVal = this.numberConversion(key);
-                valueVal = this.numberConversion(value);
+        private final String operatorName;
+        private final boolean numeric;
 
-                if (keyVal.isNumber && valueVal.isNumber) {
-                    result = keyVal.value >= valueVal.value;
-                }
-                break;
-            case "lesserThanEquals":
-                keyVal = this.numberConversion(key);
-                valueVal = this.numberConversion(value);
+        Operator(String operatorName, boolean numeric) {
+            this.operatorName = operatorName;
+            this.numeric = numeric;
+        }
 
-                if (keyVal.isNumber && valueVal.isNumber) {
-                    result = keyVal.value <= valueVal.value;
+        static Operator fromName(String name) {
+            for (Operator op : values()) {
+                if (op.operatorName.equals(name)) {
+                    return op;
                 }
-                break;
+            }
+            return null;
         }
-        return result;
-    }
 
-    private Conversions numberConversion(Object value) {
-        try {
-            if (value instanceof Number) {
-                Float keyValue = ((Number) value).floatValue();
-                return new Conversions(true, keyValue);
-            } else if (value instanceof String) {
-                Float keyValue = Float.valueOf(value.toString());
-                return new Conversions(true, keyValue);
-            }
-        } catch (Exception e) {
-            AppConfigException.logException(this.className, "numberConversion", e);
+        boolean isNumeric() {
+            return numeric;
         }
-        return new Conversions(false, Float.valueOf(0));
 
-    }
+        boolean matches(String key, String value) {
+            return false;
+        }
 
-    private class Conversions {
-        public Boolean isNumber;
-        public Float value;
+        boolean compare(double key, double value) {
+            return false;
+        }
 
-        Conversions(Boolean isNumber, Float value) {
-            this.isNumber = isNumber;
-            this.value = value;
+        StringMatcher buildMatcher(String[] values) {
+            return null;
         }
     }
 }
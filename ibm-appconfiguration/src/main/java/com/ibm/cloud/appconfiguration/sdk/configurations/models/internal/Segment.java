@@ -17,10 +17,14 @@
 package com.ibm.cloud.appconfiguration.sdk.configurations.models.internal;
 
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigConstants;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EntityAttributes;
 import com.ibm.cloud.appconfiguration.sdk.core.AppConfigException;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  *  Defines the model of a segment defined in App Configuration service.
  */
@@ -29,6 +33,7 @@ public class Segment {
     String name;
     String segmentId;
     JSONArray rules;
+    Rule[] compiledRules = new Rule[0];
     private final String className = this.getClass().getName();
 
     /**
@@ -39,7 +44,7 @@ public class Segment {
             this.name = segmentJson.getString(ConfigConstants.NAME);
             this.segmentId = segmentJson.getString(ConfigConstants.SEGMENT_ID);
             this.rules = segmentJson.getJSONArray(ConfigConstants.RULES);
-
+            this.compiledRules = compileRules(this.rules);
         } catch (Exception e) {
             AppConfigException.logException(this.className, "Segment.init", e,
                     new Object[]{"Invalid action in Segment class. "});
@@ -67,6 +72,21 @@ public class Segment {
         return segmentId;
     }
 
+    /**
+     * @return rules of the segment, built once when the segment is loaded
+     */
+    public Rule[] getCompiledRules() {
+        return compiledRules;
+    }
+
+    /**
+     * @return {@code true} if the id and the rules of the segment were read. As when the configurations are
+     * loaded, the rules that can't be read are left out
+     */
+    public boolean isValid() {
+        return this.segmentId != null && this.rules != null;
+    }
+
     /**
      * Evaluate the Segment rules.
      *
@@ -74,10 +94,19 @@ public class Segment {
      * @return {@code true} is evaluation is passed. {@code false} otherwise
      */
     public Boolean evaluateRule(JSONObject entityAttributes) {
+        return this.evaluateRule(EntityAttributes.of(entityAttributes));
+    }
+
+    /**
+     * Evaluate the Segment rules.
+     *
+     * @param entityAttributes entity attributes
+     * @return {@code true} is evaluation is passed. {@code false} otherwise
+     */
+    public boolean evaluateRule(EntityAttributes entityAttributes) {
 
-        for (int index = 0; index < this.rules.length(); index++) {
+        for (Rule rule : this.compiledRules) {
             try {
-                Rule rule = new Rule(this.rules.getJSONObject(index));
                 if (!rule.evaluateRule(entityAttributes)) {
                     return false;
                 }
@@ -88,4 +117,17 @@ public class Segment {
         }
         return true;
     }
+
+    private Rule[] compileRules(JSONArray rulesList) {
+        List<Rule> ruleList = new ArrayList<>();
+        for (int index = 0; index < rulesList.length(); index++) {
+            try {
+                ruleList.add(new Rule(rulesList.getJSONObject(index)));
+            } catch (Exception e) {
+                AppConfigException.logException(this.className, "compileRules", e,
+                        new Object[]{"Invalid action in Segment class."});
+            }
+        }
+        return ruleList.toArray(new Rule[0]);
+    }
 }
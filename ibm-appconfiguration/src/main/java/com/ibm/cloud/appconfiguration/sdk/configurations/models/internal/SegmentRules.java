@@ -21,6 +21,11 @@ import com.ibm.cloud.appconfiguration.sdk.core.AppConfigException;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Defines the model of a segment rule defined in App Configuration service.
  */
@@ -30,6 +35,9 @@ public class SegmentRules {
     Object value;
     JSONArray rules;
     Object rolloutPercentage;
+    String[] segmentIds = new String[0];
+    boolean inheritsValue;
+    Integer compiledRolloutPercentage;
 
     /**
      * @param segmentRulesJson segment_rules JSON object that contains all the segment rules
@@ -44,7 +52,11 @@ public class SegmentRules {
             } else {
                 this.rolloutPercentage = ConfigConstants.DEFAULT_ROLLOUT_PERCENTAGE;
             }
-
+            this.segmentIds = flattenSegments(this.rules);
+            this.inheritsValue = ConfigConstants.DEFAULT_VALUE.equals(this.value);
+            if (this.rolloutPercentage instanceof Number) {
+                this.compiledRolloutPercentage = ((Number) this.rolloutPercentage).intValue();
+            }
         } catch (Exception e) {
             AppConfigException.logException(this.getClass().getName(), "SegmentRules.init", e, new Object[]{"Invalid action in SegmentRules class."});
         }
@@ -77,4 +89,79 @@ public class SegmentRules {
     public Object getRolloutPercentage() {
         return rolloutPercentage;
     }
+
+    /**
+     * @return the ids of all the segments referred by the rules array, in evaluation order
+     */
+    public String[] getSegmentIds() {
+        return segmentIds;
+    }
+
+    /**
+     * @return {@code true} if the value of the rule is {@code $default} and has to be inherited
+     */
+    public boolean inheritsValue() {
+        return inheritsValue;
+    }
+
+    /**
+     * Resolve the rollout percentage of the rule.
+     *
+     * @param defaultRolloutPercentage rollout percentage to use when the rule has {@code $default}
+     * @return the effective rollout percentage
+     */
+    public int getRolloutPercentage(int defaultRolloutPercentage) {
+        return compiledRolloutPercentage == null ? defaultRolloutPercentage : compiledRolloutPercentage;
+    }
+
+    /**
+     * Compile the segment_rules array of a feature or property into an array of {@link SegmentRules}
+     * sorted by their order, so that the evaluation doesn't have to parse the JSON again.
+     * <p>
+     * As the evaluation has always looked the rules up by the orders {@code 1} to {@code n}, where {@code n} is
+     * the number of rules, rules whose order is outside of that range are left out.
+     *
+     * @param segmentRulesList segment_rules JSON array
+     * @return the segment rules sorted by order. Empty array if there are no valid rules
+     */
+    public static SegmentRules[] compile(JSONArray segmentRulesList) {
+        if (segmentRulesList == null || segmentRulesList.length() == 0) {
+            return new SegmentRules[0];
+        }
+        Map<Integer, SegmentRules> ruleMap = new HashMap<>();
+        for (int i = 0; i < segmentRulesList.length(); i++) {
+            try {
+                SegmentRules segmentRules = new SegmentRules(segmentRulesList.getJSONObject(i));
+                if (segmentRules.getOrder() != null) {
+                    ruleMap.put(segmentRules.getOrder(), segmentRules);
+                }
+            } catch (Exception e) {
+                AppConfigException.logException(SegmentRules.class.getName(), "compile", e);
+            }
+        }
+        List<SegmentRules> compiled = new ArrayList<>(ruleMap.size());
+        for (int order = 1; order <= ruleMap.size(); order++) {
+            SegmentRules segmentRules = ruleMap.get(order);
+            if (segmentRules != null) {
+                compiled.add(segmentRules);
+            }
+        }
+        return compiled.toArray(new SegmentRules[0]);
+    }
+
+    private static String[] flattenSegments(JSONArray rules) {
+        int count = 0;
+        for (int i = 0; i < rules.length(); i++) {
+            count += rules.getJSONObject(i).getJSONArray(ConfigConstants.SEGMENTS).length();
+        }
+        String[] ids = new String[count];
+        int index = 0;
+        for (int i = 0; i < rules.length(); i++) {
+            JSONArray segments = rules.getJSONObject(i).getJSONArray(ConfigConstants.SEGMENTS);
+            for (int j = 0; j < segments.length(); j++) {
+                ids[index++] = segments.getString(j);
+            }
+        }
+        return ids;
+    }
 }
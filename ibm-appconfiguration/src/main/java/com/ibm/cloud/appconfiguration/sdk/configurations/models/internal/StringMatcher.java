@@ -0,0 +1,179 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.models.internal;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * Matches an attribute against many rule values at once. A prefix trie is used for {@code startsWith},
+ * a trie of the reversed values for {@code endsWith} and an Aho-Corasick automaton for {@code contains},
+ * so the cost of a match depends on the length of the attribute and not on the number of values.
+ */
+final class StringMatcher {
+
+    private static final int PREFIX = 0;
+    private static final int SUFFIX = 1;
+    private static final int CONTAINS = 2;
+
+    private final Node root = new Node();
+    private final int mode;
+
+    private StringMatcher(int mode, String[] values) {
+        this.mode = mode;
+        for (String value : values) {
+            Node node = this.root;
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char c = mode == SUFFIX ? value.charAt(length - 1 - i) : value.charAt(i);
+                node = node.getOrAddChild(c);
+            }
+            node.terminal = true;
+        }
+        if (mode == CONTAINS) {
+            this.buildFailureLinks();
+        }
+    }
+
+    /**
+     * @param values rule values
+     * @return matcher that returns {@code true} if the attribute starts with any of the values
+     */
+    static StringMatcher startsWith(String[] values) {
+        return new StringMatcher(PREFIX, values);
+    }
+
+    /**
+     * @param values rule values
+     * @return matcher that returns {@code true} if the attribute ends with any of the values
+     */
+    static StringMatcher endsWith(String[] values) {
+        return new StringMatcher(SUFFIX, values);
+    }
+
+    /**
+     * @param values rule values
+     * @return matcher that returns {@code true} if the attribute contains any of the values
+     */
+    static StringMatcher contains(String[] values) {
+        return new StringMatcher(CONTAINS, values);
+    }
+
+    /**
+     * @param key the attribute value
+     * @return {@code true} if the key matches any of the values
+     */
+    boolean matches(String key) {
+        if (this.mode == CONTAINS) {
+            return this.scan(key);
+        }
+        Node node = this.root;
+        int length = key.length();
+        for (int i = 0; i < length; i++) {
+            if (node.terminal) {
+                return true;
+            }
+            node = node.child(this.mode == SUFFIX ? key.charAt(length - 1 - i) : key.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.terminal;
+    }
+
+    private boolean scan(String key) {
+        Node state = this.root;
+        if (state.output) {
+            return true;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            Node next = state.child(c);
+            while (next == null && state != this.root) {
+                state = state.fail;
+                next = state.child(c);
+            }
+            state = next == null ? this.root : next;
+            if (state.output) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void buildFailureLinks() {
+        Queue<Node> queue = new ArrayDeque<>();
+        this.root.fail = this.root;
+        this.root.output = this.root.terminal;
+        for (int i = 0; i < this.root.size; i++) {
+            Node child = this.root.children[i];
+            child.fail = this.root;
+            child.output = child.terminal || this.root.output;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (int i = 0; i < node.size; i++) {
+                char c = node.labels[i];
+                Node child = node.children[i];
+                Node fail = node.fail;
+                while (fail.child(c) == null && fail != this.root) {
+                    fail = fail.fail;
+                }
+                Node target = fail.child(c);
+                child.fail = target == null ? this.root : target;
+                child.output = child.terminal || child.fail.output;
+                queue.add(child);
+            }
+        }
+    }
+
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private int size;
+        private boolean terminal;
+        private boolean output;
+        private Node fail;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(this.labels, 0, this.size, c);
+            return index >= 0 ? this.children[index] : null;
+        }
+
+        Node getOrAddChild(char c) {
+            int index = Arrays.binarySearch(this.labels, 0, this.size, c);
+            if (index >= 0) {
+                return this.children[index];
+            }
+            int insertAt = -index - 1;
+            if (this.size == this.labels.length) {
+                int capacity = Math.max(2, this.size * 2);
+                this.labels = Arrays.copyOf(this.labels, capacity);
+                this.children = Arrays.copyOf(this.children, capacity);
+            }
+            System.arraycopy(this.labels, insertAt, this.labels, insertAt + 1, this.size - insertAt);
+            System.arraycopy(this.children, insertAt, this.children, insertAt + 1, this.size - insertAt);
+            Node node = new Node();
+            this.labels[insertAt] = c;
+            this.children[insertAt] = node;
+            this.size++;
+            return node;
+        }
+    }
+}
@@ -26,6 +26,7 @@ public class CoreConstants {
     public static final Integer REQUEST_SUCCESS_200 = 200;
     public static final Integer REQUEST_SUCCESS_202 = 202;
     public static final Integer REQUEST_SUCCESS_299 = 299;
+    public static final Integer NOT_MODIFIED = 304;
     public static final Integer REQUEST_ERROR_AUTH = 401;
     public static final Integer REQUEST_ERROR = 400;
     public static final Integer TOO_MANY_REQUESTS = 429;
@@ -16,8 +16,6 @@
 
 package com.ibm.cloud.appconfiguration.sdk.core;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigConstants;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.URLBuilder;
 import com.ibm.cloud.sdk.core.http.HttpHeaders;
@@ -29,8 +27,10 @@ import com.ibm.cloud.sdk.core.security.Authenticator;
 import com.ibm.cloud.sdk.core.security.IamAuthenticator;
 import com.ibm.cloud.sdk.core.service.BaseService;
 import com.ibm.cloud.sdk.core.util.ResponseConverterUtils;
+import okhttp3.RequestBody;
 import org.json.JSONObject;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -149,10 +149,25 @@ public class ServiceImpl extends BaseService {
      * @return the HTTP response
      */
     public Response getConfig(String url) {
+        return this.getConfig(url, null);
+    }
+
+    /**
+     * Execute a conditional GET API request. When the configurations still match the entity tag, the request
+     * fails with a {@link com.ibm.cloud.sdk.core.service.exception.ServiceResponseException} of status 304.
+     *
+     * @param url url to get configurations
+     * @param etag entity tag of the configurations fetched last, or {@code null} to always get them
+     * @return the HTTP response
+     */
+    public Response getConfig(String url, String etag) {
         RequestBuilder builder = RequestBuilder.get(RequestBuilder.resolveRequestUrl(url, null, null));
         for (Map.Entry<String, String> header : this.getServiceHeaders().entrySet()) {
             builder.header(header.getKey(), header.getValue());
         }
+        if (etag != null) {
+            builder.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
         ResponseConverter<String> responseConverter = ResponseConverterUtils.getString();
         return createServiceCall(builder.build(), responseConverter).execute();
     }
@@ -165,12 +180,22 @@ public class ServiceImpl extends BaseService {
      * @return the HTTP response
      */
     public Response postMetering(String meteringUrl, JSONObject data) {
+        return this.postMetering(meteringUrl, data.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Post the metering data, already serialized as JSON.
+     *
+     * @param meteringUrl url to send metering data
+     * @param body JSON request body in UTF-8
+     * @return the HTTP response
+     */
+    public Response postMetering(String meteringUrl, byte[] body) {
         RequestBuilder builder = RequestBuilder.post(RequestBuilder.resolveRequestUrl(meteringUrl, null, null));
         for (Map.Entry<String, String> header : this.getServiceHeaders().entrySet()) {
             builder.header(header.getKey(), header.getValue());
         }
-        JsonObject jsonData = new Gson().fromJson(String.valueOf(data), JsonObject.class);
-        builder.bodyJson(jsonData);
+        builder.body(RequestBody.create(body, HttpMediaType.JSON));
         ResponseConverter<String> responseConverter = ResponseConverterUtils.getString();
         return createServiceCall(builder.build(), responseConverter).execute();
     }
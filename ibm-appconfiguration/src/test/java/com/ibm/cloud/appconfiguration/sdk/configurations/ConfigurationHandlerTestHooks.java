@@ -0,0 +1,52 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations;
+
+import com.ibm.cloud.sdk.core.http.Response;
+
+/**
+ * Gives the tests access to the package-private hooks of {@link ConfigurationHandler}, so that they are not part
+ * of the API of the SDK.
+ */
+public final class ConfigurationHandlerTestHooks {
+
+    private ConfigurationHandlerTestHooks() {
+    }
+
+    /**
+     * Gets the configurations instead of the App Configuration service.
+     */
+    public interface Fetcher {
+        /**
+         * @param url url of the configurations
+         * @param etag entity tag of the configurations fetched last, or {@code null}
+         * @return the HTTP response. A {@link com.ibm.cloud.sdk.core.service.exception.ServiceResponseException}
+         * of status 304 when the configurations still match the entity tag
+         */
+        Response getConfig(String url, String etag);
+    }
+
+    /**
+     * Get the configurations with the given fetcher instead of the App Configuration service.
+     *
+     * @param configurationHandler the configuration handler
+     * @param fetcher the fetcher, or {@code null} for the App Configuration service
+     */
+    public static void setConfigFetcher(ConfigurationHandler configurationHandler, Fetcher fetcher) {
+        configurationHandler.setConfigFetcher(fetcher != null ? fetcher::getConfig : null);
+    }
+}
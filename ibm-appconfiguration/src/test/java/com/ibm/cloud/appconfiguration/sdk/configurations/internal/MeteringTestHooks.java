@@ -0,0 +1,50 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.configurations.internal;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Gives the tests access to the package-private hooks of {@link Metering}, so that they are not part of the
+ * API of the SDK.
+ */
+public final class MeteringTestHooks {
+
+    private MeteringTestHooks() {
+    }
+
+    /**
+     * Receive the request bodies instead of sending them to the server.
+     *
+     * @param metering the metering instance
+     * @param requestSink receives the request bodies on the sending thread, {@code null} to send them again
+     */
+    public static void setRequestSink(Metering metering, Consumer<byte[]> requestSink) {
+        metering.setRequestSink(requestSink);
+    }
+
+    /**
+     * Replace the executor of the sends triggered by the number of buffered rows.
+     *
+     * @param metering the metering instance
+     * @param executor runs the sends, {@code null} for the upload threads
+     */
+    public static void setFlushExecutor(Metering metering, Executor executor) {
+        metering.setFlushExecutor(executor);
+    }
+}
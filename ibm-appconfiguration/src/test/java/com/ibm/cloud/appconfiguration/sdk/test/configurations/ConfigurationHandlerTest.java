@@ -17,19 +17,43 @@
 package com.ibm.cloud.appconfiguration.sdk.test.configurations;
 
 import com.ibm.cloud.appconfiguration.sdk.configurations.ConfigurationHandler;
+import com.ibm.cloud.appconfiguration.sdk.configurations.ConfigurationHandlerTestHooks;
 import com.ibm.cloud.appconfiguration.sdk.configurations.ConfigurationUpdateListener;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigConstants;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.ConfigurationOptions;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EntityAttributes;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EntityEvaluation;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EvaluationResult;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.Feature;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.Property;
+import com.ibm.cloud.sdk.core.http.HttpHeaders;
+import com.ibm.cloud.sdk.core.http.Response;
+import com.ibm.cloud.sdk.core.service.exception.ServiceResponseException;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ConfigurationHandlerTest {
 
@@ -98,6 +122,24 @@ public class ConfigurationHandlerTest {
         value = configurationHandler.propertyEvaluation(propertyObj, "id1", new JSONObject());
         assertEquals(value, 10);
 
+        HashMap<String, Object> attributes = new HashMap<>();
+        EntityAttributes entityAttributes = EntityAttributes.of(attributes);
+        attributes.put("email", "test.dev@tester.com");
+        assertEquals(featureObj.getCurrentValueFor("id1", entityAttributes), "Welcome");
+        assertEquals(propertyObj.getCurrentValueFor("id1", entityAttributes), 81);
+        EvaluationResult result = new EvaluationResult();
+        featureObj.evaluate("id1", entityAttributes, result);
+        assertEquals(result.getStringValue(), "Welcome");
+        assertEquals(result.getEvaluatedSegmentId(), "kg92d3wa");
+        propertyObj.evaluate("id1", entityAttributes, result);
+        assertEquals(result.getLongValue(), 81L);
+        assertEquals(result.getEvaluatedSegmentId(), "keuyclvf");
+        attributes.put("email", "test@f.com");
+        assertEquals(featureObj.getCurrentValueFor("id1", entityAttributes), "hello");
+        assertEquals(propertyObj.getCurrentValueFor("id1", entityAttributes), 10);
+        attributes.clear();
+        assertEquals(propertyObj.getCurrentValueFor("id1", entityAttributes), 10);
+
         Feature feature = configurationHandler.getFeature("defaultfeature");
         assertEquals(feature.getFeatureId(), "defaultfeature");
 
@@ -110,7 +152,264 @@ public class ConfigurationHandlerTest {
         HashMap<String, Property> properties = configurationHandler.getProperties();
         assertEquals(properties.size(), 1);
 
+        attributes.put("email", "test.dev@tester.com");
+        EntityEvaluation evaluation = configurationHandler.evaluateAll("id1", entityAttributes);
+        assertEquals(evaluation.getFeatures().size(), 3);
+        assertEquals(evaluation.getProperties().size(), 1);
+        for (Feature f : features.values()) {
+            f.evaluate("id1", entityAttributes, result);
+            assertEquals(evaluation.getFeature(f.getFeatureId()).getValue(), result.getValue());
+            assertEquals(evaluation.getFeature(f.getFeatureId()).isEnabled(), result.isEnabled());
+        }
+        assertEquals(evaluation.getProperty("numericproperty").getValue(), property.getCurrentValueFor("id1", entityAttributes));
+
+    }
+
+    @Test
+    public void testEvaluateAllEvaluatesEachSegmentOnce() {
+
+        ConfigurationHandler configurationHandler = ConfigurationHandler.getInstance();
+        stopLive(configurationHandler);
+        String rules = "\"segment_rules\": [{\"rules\": [{\"segments\": [\"premium\"]}], \"value\": \"gold\", "
+                + "\"order\": 1, \"rollout_percentage\": 100}], \"segment_exists\": true";
+        JSONObject data = new JSONObject("{"
+                + "\"features\": ["
+                + "{\"name\": \"f1\", \"feature_id\": \"f1\", \"type\": \"STRING\", \"enabled_value\": \"basic\", "
+                + "\"disabled_value\": \"off\", \"rollout_percentage\": 100, \"enabled\": true, " + rules + "},"
+                + "{\"name\": \"f2\", \"feature_id\": \"f2\", \"type\": \"STRING\", \"enabled_value\": \"basic\", "
+                + "\"disabled_value\": \"off\", \"rollout_percentage\": 100, \"enabled\": true, " + rules + "}],"
+                + "\"properties\": ["
+                + "{\"name\": \"p1\", \"property_id\": \"p1\", \"type\": \"STRING\", \"value\": \"basic\", " + rules + "}],"
+                + "\"segments\": ["
+                + "{\"name\": \"premium\", \"segment_id\": \"premium\", \"rules\": [{\"values\": [\"premium\"], "
+                + "\"operator\": \"is\", \"attribute_name\": \"tier\"}]}]}");
+        configurationHandler.loadConfigurationsAndPopulateInMap(data);
+
+        int[] lookups = {0};
+        EntityAttributes entityAttributes = new EntityAttributes() {
+            @Override
+            public Object getAttribute(String name) {
+                lookups[0]++;
+                return "tier".equals(name) ? "premium" : null;
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return false;
+            }
+        };
+        EntityEvaluation evaluation = configurationHandler.evaluateAll("id1", entityAttributes);
+        assertEquals("gold", evaluation.getFeature("f1").getValue());
+        assertEquals("gold", evaluation.getFeature("f2").getValue());
+        assertEquals("gold", evaluation.getProperty("p1").getValue());
+        // the segment shared by the three flags is evaluated by the first one only
+        assertEquals(1, lookups[0]);
+    }
+
+    @Test
+    public void testConfigurationEvents() throws InterruptedException {
+
+        ConfigurationHandler configurationHandler = ConfigurationHandler.getInstance();
+        List<String> bodies = new CopyOnWriteArrayList<>(Arrays.asList(config("v1", "basic"), config("v2", "gold")));
+        AtomicInteger fetches = new AtomicInteger();
+        ConfigurationHandlerTestHooks.setConfigFetcher(configurationHandler, (url, etag) -> {
+            int fetch = fetches.getAndIncrement();
+            return response(bodies.get(Math.min(fetch, bodies.size() - 1)), "etag" + fetch);
+        });
+        try {
+            ConfigurationOptions configOption = new ConfigurationOptions();
+            configOption.setConfigUpdateQuietWindow(0L);
+            configOption.setEvaluationCacheSize(16);
+            startLive(configurationHandler, configOption);
+            BlockingQueue<Boolean> updates = new LinkedBlockingQueue<>();
+            configurationHandler.registerConfigurationUpdateListener(() -> updates.add(true));
+            assertEquals(1, fetches.get());
+
+            EntityAttributes basic = EntityAttributes.of(new JSONObject().put("tier", "basic"));
+            Feature feature = configurationHandler.getFeature("f1");
+            assertEquals("v1", feature.getCurrentValueFor("id1", basic));
+            assertEquals("v1", feature.getCurrentValueFor("id1", basic));
+            assertEquals(1, configurationHandler.getEvaluationCacheHitCount());
+
+            // an event that carries a changed segment is applied in place, and the cached evaluations of the
+            // unchanged feature are dropped
+            configurationHandler.onConfigurationEvent("{\"segments\": [" + segment("basic") + "]}");
+            assertTrue(updates.poll(10, TimeUnit.SECONDS));
+            assertEquals("premium", feature.getCurrentValueFor("id1", basic));
+            assertEquals(1, fetches.get());
+
+            configurationHandler.onConfigurationEvent("{\"features\": [" + feature("f1", "v1-changed") + "]}");
+            assertTrue(updates.poll(10, TimeUnit.SECONDS));
+            assertEquals(1, fetches.get());
+            assertEquals("v1-changed", configurationHandler.getFeature("f1")
+                    .getCurrentValueFor("id1", EntityAttributes.of(new JSONObject().put("tier", "none"))));
+            assertEquals("basic", configurationHandler.getProperty("p1").getValue());
+
+            // an event with an invalid feature falls back to a full fetch
+            configurationHandler.onConfigurationEvent("{\"features\": [{\"feature_id\": \"f2\"}]}");
+            assertTrue(updates.poll(10, TimeUnit.SECONDS));
+            assertEquals(2, fetches.get());
+            assertEquals("v2", configurationHandler.getFeature("f1").getCurrentValueFor("id1", basic));
+            assertEquals("gold", configurationHandler.getProperty("p1").getValue());
+            assertEquals(1, configurationHandler.getFeatures().size());
+        } finally {
+            ConfigurationHandlerTestHooks.setConfigFetcher(configurationHandler, null);
+            configurationHandler.registerConfigurationUpdateListener(null);
+            stopLive(configurationHandler);
+        }
     }
 
+    @Test
+    public void testConditionalFetch() {
+
+        ConfigurationHandler configurationHandler = ConfigurationHandler.getInstance();
+        List<String> etags = new CopyOnWriteArrayList<>();
+        // the responses of the successive fetches
+        Queue<Supplier<Response<String>>> responses = new ConcurrentLinkedQueue<>(Arrays.asList(
+                () -> response(config("v1", "basic"), "\"e1\""),
+                () -> { throw new ServiceResponseException(503, httpResponse(503, null)); },
+                () -> { throw new ServiceResponseException(304, httpResponse(304, "\"e1\"")); },
+                () -> { throw new ServiceResponseException(503, httpResponse(503, null)); },
+                () -> response(config("v2", "gold"), "\"e2\""),
+                () -> { throw new ServiceResponseException(304, httpResponse(304, "\"e2\"")); }));
+        ConfigurationHandlerTestHooks.setConfigFetcher(configurationHandler, (url, etag) -> {
+            etags.add(String.valueOf(etag));
+            return responses.remove().get();
+        });
+        // a retry timer asks for the delay of its first retry when it starts
+        AtomicInteger retryTimers = new AtomicInteger();
+        try {
+            ConfigurationOptions configOption = new ConfigurationOptions();
+            configOption.setConfigRetryPolicy(attempt -> {
+                if (attempt == 1) {
+                    retryTimers.incrementAndGet();
+                }
+                return 600000L;
+            });
+            startLive(configurationHandler, configOption);
+            HashMap<String, Feature> features = configurationHandler.getFeatures();
+            assertEquals("v1", features.get("f1").getEnabledValue());
+
+            // a server error starts the retry timer
+            configurationHandler.loadData();
+            assertEquals(1, retryTimers.get());
+
+            // the configurations didn't change: they are kept and the retry timer is cancelled, so that the next
+            // server error starts a new one
+            configurationHandler.loadData();
+            assertSame(features, configurationHandler.getFeatures());
+            configurationHandler.loadData();
+            assertEquals(2, retryTimers.get());
+
+            // new configurations update the entity tag sent with the next fetch
+            configurationHandler.loadData();
+            assertEquals("v2", configurationHandler.getFeature("f1").getEnabledValue());
+            configurationHandler.loadData();
+            assertEquals("gold", configurationHandler.getProperty("p1").getValue());
+
+            assertEquals(Arrays.asList("null", "\"e1\"", "\"e1\"", "\"e1\"", "\"e1\"", "\"e2\""), etags);
+            assertTrue(responses.isEmpty());
+        } finally {
+            ConfigurationHandlerTestHooks.setConfigFetcher(configurationHandler, null);
+            stopLive(configurationHandler);
+        }
+    }
 
+    @Test
+    public void testUnchangedConfigurations(@TempDir Path dir) throws InterruptedException {
+
+        ConfigurationHandler configurationHandler = ConfigurationHandler.getInstance();
+        File cache = dir.resolve("appconfiguration.json").toFile();
+        List<String> bodies = Arrays.asList(config("v1", "basic"), config("v1", "basic"), config("v2", "gold"));
+        AtomicInteger fetches = new AtomicInteger();
+        BlockingQueue<Boolean> fetched = new LinkedBlockingQueue<>();
+        // state of the handler when the last configurations are fetched
+        List<Object> before = new CopyOnWriteArrayList<>();
+        ConfigurationHandlerTestHooks.setConfigFetcher(configurationHandler, (url, etag) -> {
+            int fetch = fetches.getAndIncrement();
+            if (fetch == 2) {
+                before.add(configurationHandler.getFeatures());
+                before.add(cache.exists());
+            }
+            fetched.add(true);
+            return response(bodies.get(fetch), "etag" + fetch);
+        });
+        try {
+            ConfigurationOptions configOption = new ConfigurationOptions();
+            configOption.setConfigUpdateQuietWindow(0L);
+            configOption.setPersistentCacheDirectory(cache.getPath());
+            startLive(configurationHandler, configOption);
+            BlockingQueue<Boolean> updates = new LinkedBlockingQueue<>();
+            configurationHandler.registerConfigurationUpdateListener(() -> updates.add(true));
+            assertTrue(fetched.poll(10, TimeUnit.SECONDS));
+            HashMap<String, Feature> features = configurationHandler.getFeatures();
+            assertTrue(cache.delete());
+
+            // an event that isn't applied in place falls back to a full fetch, which returns the same body
+            configurationHandler.onConfigurationEvent("not json");
+            assertTrue(fetched.poll(10, TimeUnit.SECONDS));
+
+            // a different body is loaded, persisted and notified. The listener is notified once, so the
+            // identical body didn't notify it, nor did it reload or persist the configurations
+            configurationHandler.onConfigurationEvent("not json");
+            assertTrue(updates.poll(10, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(features, false), before);
+            assertEquals(3, fetches.get());
+            assertEquals("v2", configurationHandler.getFeature("f1").getEnabledValue());
+            assertTrue(cache.exists());
+            assertTrue(updates.isEmpty());
+        } finally {
+            ConfigurationHandlerTestHooks.setConfigFetcher(configurationHandler, null);
+            configurationHandler.registerConfigurationUpdateListener(null);
+            stopLive(configurationHandler);
+        }
+    }
+
+    private static void startLive(ConfigurationHandler configurationHandler, ConfigurationOptions configOption) {
+        configurationHandler.init("apikey", "guid", "region", null, false);
+        configOption.setLiveConfigUpdateEnabled(true);
+        configurationHandler.setContext(ConfigConstants.COLLECTION_ID, ConfigConstants.ENVIRONMENT_ID, configOption);
+    }
+
+    private static void stopLive(ConfigurationHandler configurationHandler) {
+        ConfigurationOptions configOption = new ConfigurationOptions();
+        configOption.setLiveConfigUpdateEnabled(false);
+        configurationHandler.setContext(ConfigConstants.COLLECTION_ID, ConfigConstants.ENVIRONMENT_ID, configOption);
+    }
+
+    private static String feature(String featureId, String value) {
+        return "{\"name\": \"" + featureId + "\", \"feature_id\": \"" + featureId + "\", \"type\": \"STRING\", "
+                + "\"enabled_value\": \"" + value + "\", \"disabled_value\": \"off\", \"enabled\": true, "
+                + "\"segment_rules\": [{\"rules\": [{\"segments\": [\"s1\"]}], \"value\": \"premium\", \"order\": 1}], "
+                + "\"segment_exists\": true}";
+    }
+
+    private static String config(String featureValue, String propertyValue) {
+        return "{\"features\": [" + feature("f1", featureValue) + "], "
+                + "\"properties\": [{\"name\": \"p1\", \"property_id\": \"p1\", \"type\": \"STRING\", "
+                + "\"value\": \"" + propertyValue + "\", \"segment_rules\": [], \"segment_exists\": false}], "
+                + "\"segments\": [" + segment("premium") + "]}";
+    }
+
+    private static String segment(String tier) {
+        return "{\"name\": \"s1\", \"segment_id\": \"s1\", \"rules\": [{\"values\": [\"" + tier + "\"], "
+                + "\"operator\": \"is\", \"attribute_name\": \"tier\"}]}";
+    }
+
+    private static okhttp3.Response httpResponse(int statusCode, String etag) {
+        okhttp3.Response.Builder builder = new okhttp3.Response.Builder()
+                .request(new Request.Builder().url("https://localhost/config").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(statusCode)
+                .message("status " + statusCode)
+                .body(ResponseBody.create("", null));
+        if (etag != null) {
+            builder.header(HttpHeaders.ETAG, etag);
+        }
+        return builder.build();
+    }
+
+    private static Response<String> response(String body, String etag) {
+        return new Response<>(body, httpResponse(200, etag));
+    }
 }
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.test.configurations.internal;
+
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.BackgroundScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BackgroundSchedulerTest {
+
+    @Test
+    public void testBackgroundScheduler() throws InterruptedException {
+        // a scheduler of its own, the one of the SDK is shared by the other tests
+        BackgroundScheduler scheduler = new BackgroundScheduler(1);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch ran = new CountDownLatch(3);
+        // a periodic task that throws keeps running
+        ScheduledFuture<?> task = scheduler.scheduleAtFixedRate(() -> {
+            runs.incrementAndGet();
+            ran.countDown();
+            throw new IllegalStateException("failed");
+        }, 10, 10);
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        task.cancel(false);
+        assertTrue(runs.get() >= 3);
+
+        // a shutdown is terminal
+        assertTrue(scheduler.shutdown(1000));
+        assertThrows(RejectedExecutionException.class, () -> scheduler.schedule(() -> { }, 0));
+        assertSame(BackgroundScheduler.getInstance(), BackgroundScheduler.getInstance());
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.test.configurations.internal;
+
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.EvaluationCache;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EntityAttributes;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EvaluationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EvaluationCacheTest {
+
+    private final Object feature = new Object();
+    private final HashMap<String, Object> attributes = new HashMap<>();
+    private final EntityAttributes entityAttributes = EntityAttributes.of(attributes);
+
+    private EvaluationCache.Key key(EvaluationCache cache, String entityId) {
+        return cache.newKey(feature, entityId, entityAttributes, configuration -> new String[]{"email"});
+    }
+
+    @Test
+    public void testEvaluationCache() {
+        EvaluationCache cache = new EvaluationCache(100, 0);
+        EvaluationResult result = new EvaluationResult();
+
+        attributes.put("email", "dev@tester.com");
+        attributes.put("city", "Bangalore");
+        assertFalse(cache.get(key(cache, "id1"), result));
+
+        result.setValue("Welcome");
+        result.setEnabled(true);
+        result.setEvaluatedSegmentId("kg92d3wa");
+        cache.put(key(cache, "id1"), result);
+
+        result.reset();
+        attributes.put("city", "Mumbai");
+        assertTrue(cache.get(key(cache, "id1"), result));
+        assertEquals(result.getValue(), "Welcome");
+        assertTrue(result.isEnabled());
+        assertEquals(result.getEvaluatedSegmentId(), "kg92d3wa");
+
+        assertFalse(cache.get(key(cache, "id2"), result));
+        attributes.put("email", "test@tester.com");
+        assertFalse(cache.get(key(cache, "id1"), result));
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 3);
+
+        attributes.put("email", "dev@tester.com");
+        cache.invalidate();
+        assertFalse(cache.get(key(cache, "id1"), result));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testEvaluationCacheEviction() throws InterruptedException {
+        EvaluationCache cache = new EvaluationCache(16, 0);
+        EvaluationResult result = new EvaluationResult();
+        for (int i = 0; i < 1000; i++) {
+            attributes.put("email", "user" + i);
+            cache.put(key(cache, "id"), result);
+        }
+        assertTrue(cache.size() <= 16);
+
+        cache = new EvaluationCache(16, 50);
+        cache.put(key(cache, "id"), result);
+        assertTrue(cache.get(key(cache, "id"), result));
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(cache.get(key(cache, "id"), result));
+    }
+}
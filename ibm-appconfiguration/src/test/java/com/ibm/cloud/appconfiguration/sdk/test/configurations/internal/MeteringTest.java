@@ -17,23 +17,56 @@
 package com.ibm.cloud.appconfiguration.sdk.test.configurations.internal;
 
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.Metering;
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.MeteringTestHooks;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.MeteringOverflowPolicy;
+import org.json.JSONArray;
 import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MeteringTest {
 
-    @Test
-    public void testMetering() throws InterruptedException {
+    private Metering metering;
+    private final List<JSONObject> requests = new ArrayList<>();
+
+    @BeforeEach
+    public void drainMetering() {
+        // the tests share the metering instance, start each of them with nothing recorded
+        this.metering = Metering.getInstance();
+        this.metering.disableAsyncMetering();
+        this.metering.sendMetering();
+        MeteringTestHooks.setRequestSink(this.metering,
+                body -> this.requests.add(new JSONObject(new String(body, StandardCharsets.UTF_8))));
+    }
+
+    @AfterEach
+    public void restoreRequestSink() {
+        MeteringTestHooks.setRequestSink(this.metering, null);
+    }
+
+    // the request bodies sent for a collection
+    private List<JSONObject> requests(String collectionId) {
+        List<JSONObject> bodies = new ArrayList<>();
+        for (JSONObject body : this.requests) {
+            if (collectionId.equals(body.getString("collection_id"))) {
+                bodies.add(body);
+            }
+        }
+        return bodies;
+    }
 
-        Metering metering = Metering.getInstance();
+    @Test
+    public void testMetering() {
 
-        metering.sendMetering();
-        Thread.sleep(2000);
         metering.addMetering("guid1","environment_id", "collection_id1","id_1","segment_id1","feature_id1",null);
         metering.addMetering("guid1","environment_id", "collection_id1","id_1","segment_id1","feature_id1",null);
         metering.addMetering("guid1","environment_id", "collection_id2","id_1","segment_id1","feature_id1",null);
@@ -56,4 +89,181 @@ public class MeteringTest {
         jsonObject.put("environment_id", "");
         metering.sendSplitMetering(jsonObject,0);
     }
+
+    @Test
+    public void testConcurrentMetering() throws InterruptedException {
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    metering.addMetering("guid_c", "environment_id", "collection_id", "id_" + (i % 2), "segment_id",
+                        "feature_id", null);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        HashMap<String, JSONArray> result = metering.sendMetering();
+        assertEquals(1, result.size());
+        JSONArray usages = usages(result, "guid_c");
+        assertEquals(2, usages.length());
+        assertEquals(4000, usages.getJSONObject(0).getLong("count") + usages.getJSONObject(1).getLong("count"));
+        assertTrue(usages.getJSONObject(0).getString("evaluation_time").matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}Z"));
+        assertEquals(0, metering.sendMetering().size());
+    }
+
+    private JSONArray usages(HashMap<String, JSONArray> result, String guid) {
+        JSONArray usages = new JSONArray();
+        if (result.containsKey(guid)) {
+            for (int i = 0; i < result.get(guid).length(); i++) {
+                result.get(guid).getJSONObject(i).getJSONArray("usages").forEach(usages::put);
+            }
+        }
+        return usages;
+    }
+
+    private long sentCount(HashMap<String, JSONArray> result, String guid) {
+        long count = 0;
+        JSONArray usages = usages(result, guid);
+        for (int i = 0; i < usages.length(); i++) {
+            count += usages.getJSONObject(i).getLong("count");
+        }
+        return count;
+    }
+
+    @Test
+    public void testMeteringRequestBody() {
+
+        for (int i = 0; i < 30; i++) {
+            metering.addMetering("guid_b", "environment_id", "collection_b", "id_" + i, "$$null$$", null, "property_id");
+        }
+        metering.addMetering("guid_b", "environment_id", "collection_b", "$$null$$", "segment_id", "feature_id", null);
+        metering.addMetering("guid_b", "environment_id", "collection_b2", "$$null$$", "segment_id", "feature_id", null);
+        HashMap<String, JSONArray> result = metering.sendMetering();
+        // the features and the properties of a collection are reported separately
+        JSONArray collections = result.get("guid_b");
+        assertEquals(3, collections.length());
+        for (int i = 0; i < collections.length(); i++) {
+            JSONObject collection = collections.getJSONObject(i);
+            JSONArray usages = collection.getJSONArray("usages");
+            assertEquals(usages.getJSONObject(0).has("property_id") ? 30 : 1, usages.length());
+        }
+
+        // and sent in separate requests, 30 usages in 3 requests
+        List<JSONObject> bodies = requests("collection_b");
+        assertEquals(4, bodies.size());
+        for (JSONObject json : bodies) {
+            assertEquals("environment_id", json.getString("environment_id"));
+            JSONObject usage = json.getJSONArray("usages").getJSONObject(0);
+            if (usage.has("property_id")) {
+                assertEquals(10, json.getJSONArray("usages").length());
+                assertEquals("property_id", usage.getString("property_id"));
+                assertTrue(usage.isNull("segment_id"));
+            } else {
+                assertEquals(1, json.getJSONArray("usages").length());
+                assertEquals("feature_id", usage.getString("feature_id"));
+                assertTrue(usage.isNull("entity_id"));
+                assertEquals("segment_id", usage.getString("segment_id"));
+                assertEquals(1, usage.getLong("count"));
+            }
+        }
+        assertEquals(1, requests("collection_b2").size());
+    }
+
+    @Test
+    public void testAsyncMetering() {
+
+        metering.enableAsyncMetering(1024, MeteringOverflowPolicy.DROP);
+        for (int i = 0; i < 100; i++) {
+            metering.addMetering("guid_a", "environment_id", "collection_id", "id_1", "segment_id", "feature_id", null);
+        }
+        metering.disableAsyncMetering();
+        assertEquals(100, sentCount(metering.sendMetering(), "guid_a"));
+
+        // every evaluation is either recorded or counted as dropped
+        metering.enableAsyncMetering(16, MeteringOverflowPolicy.DROP);
+        long dropped = metering.getDroppedEvaluationCount();
+        for (int i = 0; i < 10000; i++) {
+            metering.addMetering("guid_d", "environment_id", "collection_id", "id_1", "segment_id", "feature_id", null);
+        }
+        metering.disableAsyncMetering();
+        long recorded = sentCount(metering.sendMetering(), "guid_d");
+        assertEquals(10000, recorded + metering.getDroppedEvaluationCount() - dropped);
+
+        metering.enableAsyncMetering(16, MeteringOverflowPolicy.SAMPLE);
+        for (int i = 0; i < 10000; i++) {
+            metering.addMetering("guid_s", "environment_id", "collection_id", "id_1", "segment_id", "feature_id", null);
+        }
+        metering.disableAsyncMetering();
+        assertTrue(sentCount(metering.sendMetering(), "guid_s") > 0);
+    }
+
+    @Test
+    public void testMeteringLimits() {
+
+        metering.setMeteringLimits(10, 1);
+        for (int i = 0; i < 1000; i++) {
+            metering.addMetering("guid_l", "environment_id", "collection_id", "id_" + i, "segment_id", "feature_id", null);
+        }
+        for (int i = 0; i < 200; i++) {
+            metering.addMetering("guid_l", "environment_id", "collection_id", "heavy", "segment_id", "feature_id", null);
+        }
+        HashMap<String, JSONArray> result = metering.sendMetering();
+        JSONArray usages = usages(result, "guid_l");
+        assertEquals(1200, sentCount(result, "guid_l"));
+        // 10 entities, the heavy hitter and the row without entity id
+        assertEquals(12, usages.length());
+        boolean heavyHitter = false;
+        for (int i = 0; i < usages.length(); i++) {
+            heavyHitter |= "heavy".equals(usages.getJSONObject(i).opt("entity_id"));
+        }
+        assertTrue(heavyHitter);
+
+        metering.setMeteringLimits(0, 0);
+        for (int i = 0; i < 100; i++) {
+            metering.addMetering("guid_l", "environment_id", "collection_id", "id_" + i, "segment_id", "feature_id", null);
+        }
+        result = metering.sendMetering();
+        usages = usages(result, "guid_l");
+        assertEquals(1, usages.length());
+        assertEquals(100, usages.getJSONObject(0).getLong("count"));
+        assertTrue(usages.getJSONObject(0).isNull("entity_id"));
+
+        metering.setMeteringLimits(100000, 1);
+    }
+
+    @Test
+    public void testFlushPolicy() {
+
+        metering.setFlushPolicy(600000, 0, 5);
+        for (int i = 0; i < 12; i++) {
+            metering.addMetering("guid_f", "environment_id", "collection_f", "id_" + i, "segment_id", "feature_id", null);
+        }
+        HashMap<String, JSONArray> result = metering.sendMetering();
+        assertEquals(12, sentCount(result, "guid_f"));
+        List<JSONObject> bodies = requests("collection_f");
+        assertEquals(3, bodies.size());
+        assertEquals(12, bodies.get(0).getJSONArray("usages").length() + bodies.get(1).getJSONArray("usages").length()
+                + bodies.get(2).getJSONArray("usages").length());
+
+        // reaching the buffered rows sends them without waiting for the interval, here on the evaluating thread
+        MeteringTestHooks.setFlushExecutor(metering, Runnable::run);
+        metering.setFlushPolicy(600000, 5, 0);
+        try {
+            for (int i = 0; i < 4; i++) {
+                metering.addMetering("guid_f", "environment_id", "collection_id", "id_" + i, "segment_id", "feature_id", null);
+            }
+            assertEquals(4, sentCount(metering.sendMetering(), "guid_f"));
+            for (int i = 0; i < 5; i++) {
+                metering.addMetering("guid_f", "environment_id", "collection_id", "id_" + i, "segment_id", "feature_id", null);
+            }
+            assertEquals(0, sentCount(metering.sendMetering(), "guid_f"));
+        } finally {
+            metering.setFlushPolicy(600000, 0, 0);
+            MeteringTestHooks.setFlushExecutor(metering, null);
+        }
+    }
 }
@@ -0,0 +1,202 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.test.configurations.internal;
+
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.MeteringSpool;
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.MeteringUploader;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.RetryPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MeteringUploaderTest {
+
+    @Test
+    public void testUploadWithRetries() throws InterruptedException {
+        ConcurrentHashMap<Byte, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        CountDownLatch delivered = new CountDownLatch(20);
+        MeteringUploader uploader = new MeteringUploader(body -> {
+            // every body fails twice before being delivered
+            if (attempts.computeIfAbsent(body[0], k -> new AtomicInteger()).incrementAndGet() <= 2) {
+                throw new IOException("connection refused");
+            }
+            delivered.countDown();
+        }, 4, 100, RetryPolicy.exponentialBackoff(10, 40));
+
+        for (byte i = 0; i < 20; i++) {
+            uploader.upload(new byte[]{i});
+        }
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        assertTrue(uploader.shutdown(5000));
+        assertEquals(0, uploader.getDroppedCount());
+        assertEquals(0, uploader.getQueuedRetryCount());
+        for (AtomicInteger count : attempts.values()) {
+            assertEquals(3, count.get());
+        }
+    }
+
+    @Test
+    public void testRetryCap() throws InterruptedException {
+        MeteringUploader uploader = new MeteringUploader(body -> {
+            throw new IOException("connection refused");
+        }, 1, 2, RetryPolicy.fixed(60000));
+
+        for (int i = 0; i < 5; i++) {
+            uploader.upload(new byte[]{(byte) i});
+        }
+        // the failed sends are done once the uploads are stopped, the retries are not due yet
+        assertTrue(uploader.shutdown(5000));
+        assertEquals(2, uploader.getQueuedRetryCount());
+        assertEquals(3, uploader.getDroppedCount());
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException {
+        AtomicInteger delivered = new AtomicInteger();
+        MeteringUploader uploader = new MeteringUploader(body -> {
+            Thread.sleep(50);
+            delivered.incrementAndGet();
+        }, 1, 10, RetryPolicy.fixed(10));
+
+        for (int i = 0; i < 3; i++) {
+            uploader.upload(new byte[]{(byte) i});
+        }
+        assertTrue(uploader.shutdown(5000));
+        assertEquals(3, delivered.get());
+
+        uploader.upload(new byte[]{0});
+        assertEquals(1, uploader.getDroppedCount());
+    }
+
+    @Test
+    public void testSpool() throws IOException {
+        File directory = Files.createTempDirectory("metering-spool").toFile();
+        MeteringSpool spool = new MeteringSpool(directory, 100, 30);
+        for (byte i = 0; i < 9; i++) {
+            assertTrue(spool.append(new byte[]{'a', (byte) ('0' + i)}));
+        }
+        // 9 lines of 3 bytes fit in 100 bytes, the segments hold 10 lines each
+        assertEquals(27, spool.getSize());
+        assertTrue(spool.append(new byte[70]));
+        assertFalse(spool.append(new byte[2]));
+
+        // a new spool on the same directory reads the segments oldest first
+        spool = new MeteringSpool(directory, 100, 30);
+        assertEquals(98, spool.getSize());
+        List<byte[]> bodies = spool.peek();
+        assertEquals(9, bodies.size());
+        assertEquals('0', bodies.get(0)[1]);
+
+        // the bodies left after a partial delivery stay at the head of the spool, also for the next process
+        spool.remove(4);
+        assertEquals(86, spool.getSize());
+        spool = new MeteringSpool(directory, 100, 30);
+        assertEquals(86, spool.getSize());
+        bodies = spool.peek();
+        assertEquals(5, bodies.size());
+        assertEquals('4', bodies.get(0)[1]);
+        spool.remove(0);
+        assertEquals(5, spool.peek().size());
+        spool.remove(5);
+
+        assertEquals(70, spool.peek().get(0).length);
+        spool.remove(1);
+        assertNull(spool.peek());
+        assertTrue(spool.isEmpty());
+        assertEquals(0, spool.getSize());
+    }
+
+    @Test
+    public void testSpoolKeepsOrderOnFailure() throws IOException, InterruptedException {
+        File directory = Files.createTempDirectory("metering-spool").toFile();
+        MeteringSpool spool = new MeteringSpool(directory, 1 << 20, 1024);
+        for (byte i = 0; i < 5; i++) {
+            assertTrue(spool.append(new byte[]{'a', (byte) ('0' + i)}));
+        }
+        List<Byte> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(5);
+        MeteringUploader uploader = new MeteringUploader(body -> {
+            // the third body fails once
+            if (body[1] == '2' && failed.getCount() > 0) {
+                failed.countDown();
+                throw new IOException("connection refused");
+            }
+            received.add(body[1]);
+            delivered.countDown();
+        }, 1, 0, RetryPolicy.fixed(10));
+        uploader.setSpool(spool);
+
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        awaitUploads(uploader);
+        assertEquals(Arrays.asList((byte) '0', (byte) '1', (byte) '2', (byte) '3', (byte) '4'), received);
+        assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    public void testUploadWithSpool() throws IOException, InterruptedException {
+        AtomicBoolean available = new AtomicBoolean(false);
+        CountDownLatch delivered = new CountDownLatch(20);
+        // a single upload thread runs the sends and the replays in order, a task queued after them runs once
+        // they are done
+        MeteringUploader uploader = new MeteringUploader(body -> {
+            if (!available.get()) {
+                throw new IOException("connection refused");
+            }
+            delivered.countDown();
+        }, 1, 0, RetryPolicy.fixed(10));
+        MeteringSpool spool = new MeteringSpool(Files.createTempDirectory("metering-spool").toFile(), 1 << 20, 1024);
+        uploader.setSpool(spool);
+
+        for (int i = 0; i < 20; i++) {
+            uploader.upload(new byte[]{'{', '}'});
+        }
+        awaitUploads(uploader);
+        // the failed bodies wait on disk, not in the retry queue
+        assertFalse(spool.isEmpty());
+        assertEquals(0, uploader.getQueuedRetryCount());
+        assertEquals(0, uploader.getDroppedCount());
+
+        available.set(true);
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        awaitUploads(uploader);
+        assertTrue(spool.isEmpty());
+        assertEquals(0, uploader.getDroppedCount());
+    }
+
+    private static void awaitUploads(MeteringUploader uploader) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        uploader.execute(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+}
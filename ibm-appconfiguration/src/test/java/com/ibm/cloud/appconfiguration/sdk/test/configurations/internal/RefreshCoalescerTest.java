@@ -0,0 +1,72 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.test.configurations.internal;
+
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.RefreshCoalescer;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RefreshCoalescerTest {
+
+    @Test
+    public void testRefreshCoalescer() throws InterruptedException {
+        int[] refreshes = {0};
+        RefreshCoalescer[] coalescer = new RefreshCoalescer[1];
+        // the refreshes are handed to the test, which runs them one at a time
+        BlockingQueue<Runnable> dispatched = new LinkedBlockingQueue<>();
+        coalescer[0] = new RefreshCoalescer(() -> {
+            if (++refreshes[0] == 2) {
+                // the requests received while a refresh runs are one more refresh
+                for (int i = 0; i < 100; i++) {
+                    coalescer[0].request();
+                }
+            }
+        }, 10, dispatched::add);
+
+        // a burst within the quiet window is one refresh
+        for (int i = 0; i < 100; i++) {
+            coalescer[0].request();
+        }
+        runNext(dispatched);
+        assertEquals(1, refreshes[0]);
+        assertTrue(dispatched.isEmpty());
+
+        coalescer[0].request();
+        runNext(dispatched);
+        assertEquals(2, refreshes[0]);
+        runNext(dispatched);
+        assertEquals(3, refreshes[0]);
+        // no request since the last refresh started, so nothing is scheduled
+        assertTrue(dispatched.isEmpty());
+        coalescer[0].request();
+        runNext(dispatched);
+        assertEquals(4, refreshes[0]);
+    }
+
+    private static void runNext(BlockingQueue<Runnable> dispatched) throws InterruptedException {
+        Runnable refresh = dispatched.poll(10, TimeUnit.SECONDS);
+        assertNotNull(refresh);
+        refresh.run();
+    }
+}
@@ -16,12 +16,21 @@
 
 package com.ibm.cloud.appconfiguration.sdk.test.configurations.internal;
 
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.BackgroundScheduler;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.RetryHandler;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.RetryInterface;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.RetryPolicy;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class RetryHandlerTest {
@@ -42,4 +51,89 @@ public class RetryHandlerTest {
         retryHandler.cancel();
         assertTrue(calledHandler[0]);
     }
+
+    @Test
+    public void testRetryPolicy() throws InterruptedException {
+
+        List<Integer> attempts = new CopyOnWriteArrayList<>();
+        RetryHandler[] retryHandler = new RetryHandler[1];
+        CountDownLatch created = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        retryHandler[0] = new RetryHandler(new RetryInterface() {
+            @Override
+            public void retryMethod() {
+                attempts.add(attempts.size() + 1);
+                if (attempts.size() == 3) {
+                    // cancelled from the running retry, as the SDK does once a retry succeeds, so that no other
+                    // retry is in flight
+                    try {
+                        created.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    retryHandler[0].cancel();
+                    cancelled.countDown();
+                }
+            }
+        }, attempt -> attempt * 10L);
+        created.countDown();
+
+        assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(3, attempts.size());
+    }
+
+    @Test
+    public void testRetriesOnExecutor() throws InterruptedException {
+
+        // retries that wait for the network, more of them than scheduler threads
+        ExecutorService executor = Executors.newCachedThreadPool();
+        CountDownLatch network = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(3);
+        AtomicInteger fixedRateRuns = new AtomicInteger();
+        RetryInterface slowRetry = () -> {
+            started.countDown();
+            try {
+                network.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        RetryHandler[] retryHandlers = {
+            new RetryHandler(slowRetry, attempt -> 10L, executor),
+            new RetryHandler(slowRetry, attempt -> 10L, executor),
+            new RetryHandler(() -> {
+                fixedRateRuns.incrementAndGet();
+                slowRetry.retryMethod();
+            }, 10, executor)
+        };
+        try {
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // the scheduler still runs the other tasks
+            CountDownLatch scheduled = new CountDownLatch(1);
+            BackgroundScheduler.getInstance().schedule(scheduled::countDown, 10);
+            assertTrue(scheduled.await(10, TimeUnit.SECONDS));
+            // a fixed rate retry doesn't start again while the previous one is running
+            assertEquals(1, fixedRateRuns.get());
+        } finally {
+            for (RetryHandler retryHandler : retryHandlers) {
+                retryHandler.cancel();
+            }
+            network.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExponentialBackoff() {
+
+        RetryPolicy policy = RetryPolicy.exponentialBackoff(1000, 60000);
+        for (int i = 0; i < 100; i++) {
+            long first = policy.getDelay(1);
+            assertTrue(first >= 1000 && first <= 2000);
+            long late = policy.getDelay(100);
+            assertTrue(late >= 1000 && late <= 60000);
+        }
+        assertEquals(5000, RetryPolicy.fixed(5000).getDelay(7));
+    }
 }
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.cloud.appconfiguration.sdk.test.configurations.internal;
+
+import com.ibm.cloud.appconfiguration.sdk.configurations.internal.RolloutBucket;
+import org.apache.commons.codec.digest.MurmurHash3;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RolloutBucketTest {
+
+    private int expected(String entityId, String featureId) {
+        byte[] data = (entityId + ":" + featureId).getBytes(StandardCharsets.UTF_8);
+        long hashResult = MurmurHash3.hash32x86(data, 0, data.length, 0) & 0x00000000ffffffffL;
+        return (int) ((hashResult / Math.pow(2, 32)) * 100);
+    }
+
+    @Test
+    public void testRolloutBucket() {
+        String[] entityIds = {"pvqr", "user123", "", "dev@tester.com", "m\u00FCller", "\u6771\u4EAC", "emoji\uD83D\uDE00", "lone\uD800x",
+                "a-very-long-entity-id-that-is-longer-than-the-initial-buffer-of-the-thread-a-very-long-entity-id-xyz"};
+        for (String entityId : entityIds) {
+            assertEquals(expected(entityId, "defaultfeature"), RolloutBucket.compute(entityId, "defaultfeature"));
+            assertEquals(expected(entityId, "f\u00EBature"), RolloutBucket.compute(entityId, "f\u00EBature"));
+        }
+        assertEquals(expected(null, "defaultfeature"), RolloutBucket.compute(null, "defaultfeature"));
+    }
+
+    @Test
+    public void testRolloutBucketCache() {
+        RolloutBucket rolloutBucket = new RolloutBucket(4);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) {
+                String entityId = "entity" + i;
+                assertEquals(expected(entityId, "defaultfeature"), rolloutBucket.bucket(entityId, "defaultfeature"));
+            }
+        }
+        assertEquals(expected("pvqr", "defaultfeature"), new RolloutBucket(0).bucket("pvqr", "defaultfeature"));
+    }
+}
@@ -19,13 +19,19 @@ import com.ibm.cloud.appconfiguration.sdk.configurations.ConfigurationHandler;
 import com.ibm.cloud.appconfiguration.sdk.configurations.internal.ConfigConstants;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.ConfigurationOptions;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.ConfigurationType;
+import com.ibm.cloud.appconfiguration.sdk.configurations.models.EvaluationResult;
 import com.ibm.cloud.appconfiguration.sdk.configurations.models.Feature;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -78,6 +84,7 @@ public class FeatureTest {
         assertEquals(sut.isEnabled(), true);
         assertEquals(sut.getCurrentValue("d",null),"Org user");
         assertEquals(sut.getFeatureDataFormat(), "TEXT");
+        assertTrue(sut.isValid());
 
     }
 
@@ -154,6 +161,7 @@ public class FeatureTest {
         assertNull(this.sut.getDisabledValue());
         assertNull(this.sut.getEnabledValue());
         assertNull(this.sut.getSegmentRules());
+        assertFalse(this.sut.isValid());
     }
 
     @Test
@@ -163,4 +171,49 @@ public class FeatureTest {
         Boolean currentValue = (Boolean) sut.getCurrentValue("test");
         assertEquals(currentValue, true);
     }
+
+    @Test
+    public void testTypedFeatureValues() {
+        setUpFeature(ConfigurationType.NUMERIC, 20, 50, true, null);
+        assertTrue(sut.isEnabledFor("test", null));
+        assertEquals(sut.getLongValue("test", null), 50L);
+        assertEquals(sut.getDoubleValue("test", null), 50.0);
+        assertEquals(sut.getStringValue("test", null), "50");
+        assertFalse(sut.getBooleanValue("test", null));
+
+        EvaluationResult result = new EvaluationResult();
+        sut.evaluate("test", null, result);
+        assertTrue(result.isEnabled());
+        assertEquals(result.getValue(), 50);
+        assertEquals(result.getEvaluatedSegmentId(), ConfigConstants.DEFAULT_SEGMENT_ID);
+        assertFalse(result.hasEvaluatedSegment());
+
+        setUpFeature(ConfigurationType.BOOLEAN, false, true, false, null);
+        assertFalse(sut.isEnabledFor("test", null));
+        assertFalse(sut.getBooleanValue("test", null));
+        sut.evaluate(null, null, result);
+        assertNull(result.getValue());
+        assertFalse(result.isEnabled());
+    }
+
+    @Test
+    public void testTypedFeatureValuesDoNotAllocate() {
+        setUpFeature(ConfigurationType.NUMERIC, 20, 50, true, null);
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // the first evaluations create the metering row and the per-thread holders
+        long sum = 0;
+        for (int i = 0; i < 100; i++) {
+            sum += sut.getLongValue("test", null);
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10000; i++) {
+            sum += sut.getLongValue("test", null);
+            sum += sut.isEnabledFor("test", null) ? 1 : 0;
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertEquals(sum, 100 * 50 + 10000 * 51);
+        // leaves room for the allocations of the measurement itself, not for one per evaluation
+        assertTrue(allocated < 10000, "allocated " + allocated + " bytes");
+    }
 }
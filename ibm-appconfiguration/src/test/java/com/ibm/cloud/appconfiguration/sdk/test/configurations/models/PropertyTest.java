@@ -23,7 +23,9 @@ import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PropertyTest {
 
@@ -54,6 +56,7 @@ public class PropertyTest {
         assertEquals(sut.getPropertyName(), "defaultProperty");
         assertEquals(sut.getPropertyId(), "defaultproperty");
         assertEquals(sut.getPropertyDataFormat(), "TEXT");
+        assertTrue(sut.isValid());
     }
 
     @Test
@@ -110,5 +113,6 @@ public class PropertyTest {
         assertNull(this.sut.getPropertyId());
         assertNull(this.sut.getPropertyName());
         assertNull(this.sut.getValue());
+        assertFalse(this.sut.isValid());
     }
 }
@@ -152,6 +152,106 @@ public class RuleTest {
 
     }
 
+    @Test
+    public void testEvaluationMultipleValues() {
+        JSONObject rules = new JSONObject();
+        rules.put("values", new JSONArray().put("abc").put("150").put(300));
+        rules.put("operator", "greaterThan");
+        rules.put("attribute_name", "creditValues");
+        this.sut = new Rule(rules);
+
+        JSONObject clientAttributes = new JSONObject();
+        clientAttributes.put("creditValues", 200);
+        assertTrue(sut.evaluateRule(clientAttributes));
+        clientAttributes.put("creditValues", "100.5");
+        assertFalse(sut.evaluateRule(clientAttributes));
+        clientAttributes.put("creditValues", "xyz");
+        assertFalse(sut.evaluateRule(clientAttributes));
+
+        rules.put("values", new JSONArray().put("gmail.com").put("ibm.com"));
+        rules.put("operator", "endsWith");
+        rules.put("attribute_name", "email");
+        this.sut = new Rule(rules);
+        clientAttributes.put("email", "tester@ibm.com");
+        assertTrue(sut.evaluateRule(clientAttributes));
+
+        rules.put("operator", "unknownOperator");
+        this.sut = new Rule(rules);
+        assertFalse(sut.evaluateRule(clientAttributes));
+    }
+
+    @Test
+    public void testEvaluationIsWithLargeValueList() {
+        JSONArray values = new JSONArray();
+        for (int i = 0; i < 500; i++) {
+            values.put("user" + i);
+        }
+        values.put(1234);
+        values.put(true);
+        JSONObject rules = new JSONObject();
+        rules.put("values", values);
+        rules.put("operator", "is");
+        rules.put("attribute_name", "userId");
+        this.sut = new Rule(rules);
+
+        JSONObject clientAttributes = new JSONObject();
+        clientAttributes.put("userId", "user499");
+        assertTrue(sut.evaluateRule(clientAttributes));
+        clientAttributes.put("userId", "user500");
+        assertFalse(sut.evaluateRule(clientAttributes));
+        clientAttributes.put("userId", "1234");
+        assertTrue(sut.evaluateRule(clientAttributes));
+        clientAttributes.put("userId", 1234);
+        assertTrue(sut.evaluateRule(clientAttributes));
+        clientAttributes.put("userId", true);
+        assertTrue(sut.evaluateRule(clientAttributes));
+    }
+
+    private void setUpMany(String operator, String... values) {
+        JSONObject rules = new JSONObject();
+        JSONArray valuesArray = new JSONArray();
+        for (String value : values) {
+            valuesArray.put(value);
+        }
+        rules.put("values", valuesArray);
+        rules.put("operator", operator);
+        rules.put("attribute_name", "path");
+        this.sut = new Rule(rules);
+    }
+
+    private boolean evaluate(String path) {
+        JSONObject clientAttributes = new JSONObject();
+        clientAttributes.put("path", path);
+        return sut.evaluateRule(clientAttributes);
+    }
+
+    @Test
+    public void testEvaluationWithManyStringValues() {
+        setUpMany("startsWith", "/api/v1", "/api/v2", "/admin", "/static/", "/health", "/metrics", "/docs", "/login");
+        assertTrue(evaluate("/api/v2/users"));
+        assertTrue(evaluate("/admin"));
+        assertFalse(evaluate("/api/v3/users"));
+        assertFalse(evaluate("/adm"));
+        assertFalse(evaluate(""));
+
+        setUpMany("endsWith", "@ibm.com", "@in.ibm.com", ".org", ".gov", ".edu", "@tester.com", ".io", ".dev");
+        assertTrue(evaluate("user@in.ibm.com"));
+        assertTrue(evaluate("user@ibm.com"));
+        assertTrue(evaluate("site.io"));
+        assertFalse(evaluate("user@ibm.co"));
+        assertFalse(evaluate("com"));
+
+        setUpMany("contains", "he", "she", "his", "hers", "xyz", "abcd", "bc", "qq");
+        assertTrue(evaluate("ushers"));
+        assertTrue(evaluate("abxbcx"));
+        assertTrue(evaluate("ahishe"));
+        assertFalse(evaluate("abxacd"));
+        assertFalse(evaluate("hxsxyq"));
+
+        setUpMany("contains", "", "a", "b", "c", "d", "e", "f", "g");
+        assertTrue(evaluate("zzz"));
+    }
+
     @Test
     public void testRulesException() {
         this.sut = new Rule(new JSONObject());
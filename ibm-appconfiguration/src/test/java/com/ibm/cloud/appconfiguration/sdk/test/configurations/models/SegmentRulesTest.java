@@ -58,6 +58,58 @@ public class SegmentRulesTest {
 
     }
 
+    @Test
+    public void testCompileSegmentRules() {
+        JSONArray segmentRulesList = new JSONArray();
+        for (int order = 2; order >= 1; order--) {
+            JSONArray segments = new JSONArray();
+            segments.put("segment" + order + "a");
+            segments.put("segment" + order + "b");
+            JSONArray rules = new JSONArray();
+            rules.put(new JSONObject().put("segments", segments));
+            rules.put(new JSONObject().put("segments", new JSONArray().put("segment" + order + "c")));
+            JSONObject segmentRules = new JSONObject();
+            segmentRules.put("rules", rules);
+            segmentRules.put("value", order == 1 ? "$default" : "IBM user");
+            segmentRules.put("rollout_percentage", order == 1 ? "$default" : 50);
+            segmentRules.put("order", order);
+            segmentRulesList.put(segmentRules);
+        }
+
+        SegmentRules[] compiled = SegmentRules.compile(segmentRulesList);
+        assertEquals(compiled.length, 2);
+        assertEquals(compiled[0].getOrder().intValue(), 1);
+        assertArrayEquals(compiled[0].getSegmentIds(), new String[]{"segment1a", "segment1b", "segment1c"});
+        assertTrue(compiled[0].inheritsValue());
+        assertEquals(compiled[0].getRolloutPercentage(75), 75);
+        assertEquals(compiled[1].getOrder().intValue(), 2);
+        assertFalse(compiled[1].inheritsValue());
+        assertEquals(compiled[1].getRolloutPercentage(75), 50);
+
+        assertEquals(SegmentRules.compile(new JSONArray()).length, 0);
+        assertEquals(SegmentRules.compile(null).length, 0);
+    }
+
+    @Test
+    public void testCompileSkipsOrdersOutOfRange() {
+        JSONArray segmentRulesList = new JSONArray();
+        for (int order : new int[]{2, 5}) {
+            JSONArray rules = new JSONArray();
+            rules.put(new JSONObject().put("segments", new JSONArray().put("segment" + order)));
+            JSONObject segmentRules = new JSONObject();
+            segmentRules.put("rules", rules);
+            segmentRules.put("value", "value" + order);
+            segmentRules.put("order", order);
+            segmentRulesList.put(segmentRules);
+        }
+
+        // only the orders 1 to the number of rules are evaluated
+        SegmentRules[] compiled = SegmentRules.compile(segmentRulesList);
+        assertEquals(compiled.length, 1);
+        assertEquals(compiled[0].getOrder().intValue(), 2);
+        assertEquals(compiled[0].getValue(), "value2");
+    }
+
     @Test
     public void testSegmentRulesException() {
         this.sut = new SegmentRules(new JSONObject());
@@ -63,6 +63,9 @@ public class SegmentTest {
     @Test
     public void testSegment() {
         setUp();
+        assertTrue(sut.isValid());
+        assertFalse(new Segment(new JSONObject()).isValid());
+        assertFalse(new Segment(new JSONObject().put("name", "beta").put("segment_id", "kdu77n4s")).isValid());
         JSONObject clientAttributes = new JSONObject();
         try {
             clientAttributes.put("radius",100);
@@ -76,6 +79,8 @@ public class SegmentTest {
             assertEquals(sut.getName(),"RegionalUser" );
             assertEquals(sut.getSegmentId(),"kdu77n4s" );
             assertEquals(sut.getRules().length(),2 );
+            assertEquals(sut.getCompiledRules().length,2 );
+            assertEquals(sut.getCompiledRules()[1].attributeName,"cityRadius" );
         } catch (Exception e) {
             System.out.println(e);
             assertFalse(true);
@@ -89,5 +94,35 @@ public class SegmentTest {
         assertNull(this.sut.getName());
         assertNull(this.sut.getRules());
         assertNull(this.sut.getSegmentId());
+        assertEquals(this.sut.getCompiledRules().length, 0);
+    }
+
+    @Test
+    public void testSegmentWithMalformedRule() {
+        JSONObject segment = new JSONObject();
+        JSONArray rules = new JSONArray();
+        rules.put(new JSONObject().put("operator", "is").put("attribute_name", "email"));
+        rules.put(new JSONObject().put("values", new JSONArray().put(50)).put("operator", "lesserThan")
+            .put("attribute_name", "cityRadius"));
+        segment.put("name", "MalformedSegment");
+        segment.put("segment_id", "malformed");
+        segment.put("rules", rules);
+        Segment malformed = new Segment(segment);
+
+        // the rule without values is skipped when the entity has its attribute, and fails otherwise
+        JSONObject clientAttributes = new JSONObject();
+        clientAttributes.put("email", "test@tester.com");
+        clientAttributes.put("cityRadius", 35);
+        assertTrue(malformed.evaluateRule(clientAttributes));
+        clientAttributes.put("cityRadius", 55);
+        assertFalse(malformed.evaluateRule(clientAttributes));
+        clientAttributes.remove("email");
+        clientAttributes.put("cityRadius", 35);
+        assertFalse(malformed.evaluateRule(clientAttributes));
+
+        // a rule with an unknown operator never matches
+        rules.put(new JSONObject().put("values", new JSONArray().put("x")).put("operator", "unknown")
+            .put("attribute_name", "cityRadius"));
+        assertFalse(new Segment(segment).evaluateRule(new JSONObject().put("email", "a").put("cityRadius", 35)));
     }
 }
@@ -24,6 +24,7 @@ public class CoreConstantsTest {
     @Test public void testCoreConstants() {
         assertEquals(CoreConstants.REQUEST_SUCCESS_200, Integer.valueOf(200));
         assertEquals(CoreConstants.REQUEST_SUCCESS_299, Integer.valueOf(299));
+        assertEquals(CoreConstants.NOT_MODIFIED, Integer.valueOf(304));
         assertEquals(CoreConstants.REQUEST_ERROR, Integer.valueOf(400));
         assertEquals(CoreConstants.REQUEST_ERROR_AUTH, Integer.valueOf(401));
         assertEquals(CoreConstants.REQUEST_ERROR_NOT_SUPPORTED, Integer.valueOf(405));
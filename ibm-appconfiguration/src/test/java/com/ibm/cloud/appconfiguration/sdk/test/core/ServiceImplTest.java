@@ -45,6 +45,9 @@ public class ServiceImplTest {
         assertThrows(Exception.class, () -> {
             test.getConfig("http://testConfig");
         });
+        assertThrows(Exception.class, () -> {
+            test.getConfig("http://testConfig", "\"etag\"");
+        });
         assertThrows(Exception.class, () -> {
             test.postMetering("http://testMetering", new JSONObject());
         });